@@ -5,11 +5,19 @@ import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.retry.interceptor.RetryOperationsInterceptor;
+
+import java.time.Duration;
 
 @Configuration
 public class RabbitMQConsumerConfig {
@@ -23,26 +31,104 @@ public class RabbitMQConsumerConfig {
     @Value("${spring.rabbitmq.template.exchange}")
     private String exchange;
 
+    @Value("${notifications.consumer.concurrency}")
+    private int concurrency;
+
+    @Value("${notifications.consumer.max-concurrency}")
+    private int maxConcurrency;
+
+    @Value("${notifications.consumer.prefetch}")
+    private int prefetch;
+
+    @Value("${notifications.consumer.batch-size}")
+    private int batchSize;
+
+    @Value("${notifications.consumer.receive-timeout-ms}")
+    private long receiveTimeout;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Value("${notifications.consumer.retry.max-attempts}")
+    private int retryMaxAttempts;
+
+    @Value("${notifications.consumer.retry.initial-interval}")
+    private Duration retryInitialInterval;
+
+    @Value("${notifications.consumer.retry.multiplier}")
+    private double retryMultiplier;
+
+    @Value("${notifications.consumer.retry.max-interval}")
+    private Duration retryMaxInterval;
+
+    @Value("${notifications.consumer.dead-letter.queue}")
+    private String deadLetterQueue;
+
+    @Value("${notifications.consumer.dead-letter.routing-key}")
+    private String deadLetterRoutingKey;
+
     @Bean
     public Queue queue() {
         return new Queue(queue, true);
     }
 
+    // Пачки, которые не удалось сохранить после всех повторов. Аргументы основной очереди не меняются:
+    // ее объявляет и srv, а смена x-dead-letter-exchange у существующей очереди отклоняется брокером
+    @Bean
+    public Queue deadLetterQueue() {
+        return new Queue(deadLetterQueue, true);
+    }
+
     @Bean
     public DirectExchange directExchange() {
         return new DirectExchange(exchange);
     }
 
     @Bean
-    public Binding binding(Queue queue, DirectExchange exchange) {
-        return BindingBuilder.bind(queue).to(exchange).with(routingKey);
+    public Binding binding(DirectExchange exchange) {
+        return BindingBuilder.bind(queue()).to(exchange).with(routingKey);
+    }
+
+    @Bean
+    public Binding deadLetterBinding(DirectExchange exchange) {
+        return BindingBuilder.bind(deadLetterQueue()).to(exchange).with(deadLetterRoutingKey);
     }
 
     @Bean
-    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                               RabbitTemplate rabbitTemplate) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setDefaultRequeueRejected(false);
+        factory.setAdviceChain(retryInterceptor(rabbitTemplate));
+
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(prefetch);
+
+        // Листенер получает список сообщений: до batchSize штук или сколько успело прийти за receiveTimeout
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeout);
+
+        // Фабрика собирается вручную, поэтому настройку spring.threads.virtual Spring Boot к ней не применяет
+        if (virtualThreads) {
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-consumer-"));
+        }
         return factory;
     }
+
+    // Ошибка сохранения пачки (например, временная недоступность БД) повторяется с экспоненциальной паузой.
+    // После последней попытки сообщения пачки переотправляются в deadLetterQueue с заголовками x-exception-*
+    // и подтверждаются, а не отбрасываются. Некорректные сообщения listen по-прежнему пропускает, повтора они не вызывают
+    private RetryOperationsInterceptor retryInterceptor(RabbitTemplate rabbitTemplate) {
+        RepublishMessageRecoverer republisher = new RepublishMessageRecoverer(rabbitTemplate, exchange, deadLetterRoutingKey);
+        MessageBatchRecoverer recoverer = (messages, cause) -> messages.forEach(message -> republisher.recover(message, cause));
+        return RetryInterceptorBuilder.stateless()
+                .maxAttempts(retryMaxAttempts)
+                .backOffOptions(retryInitialInterval.toMillis(), retryMultiplier, retryMaxInterval.toMillis())
+                .recoverer(recoverer)
+                .build();
+    }
 }
\ No newline at end of file
@@ -1,31 +1,60 @@
 package com.example.messagebrokers.consumer;
 
 import com.example.messagebrokers.models.Notification;
-import com.example.messagebrokers.repository.NotificationRepository;
+import com.example.messagebrokers.service.NotificationService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RabbitMQNotificationConsumer {
 
-    private final NotificationRepository notificationRepository;
+    private final NotificationService notificationService;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
+    // Сообщения приходят пачкой (см. RabbitMQConsumerConfig). Подтверждение брокеру уходит после возврата из метода,
+    // то есть после коммита транзакции с сохранением всей пачки.
+    // Наблюдение spring-amqp для batch-листенеров не поддерживается, поэтому метрики пишутся здесь
     @RabbitListener(queues = "${spring.rabbitmq.template.default-receive-queue}")
-    public void listen(String message) {
-        System.out.println("Received status update from RabbitMQ: " + message);
-
-        try {
-            Notification notification = objectMapper.readValue(message, Notification.class);
-            notificationRepository.save(notification);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
+    public void listen(List<String> messages) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        log.debug("Received {} status updates from RabbitMQ", messages.size());
+
+        LocalDateTime now = LocalDateTime.now();
+        Timer deliveryLag = meterRegistry.timer("notifications.delivery.lag");
+
+        List<Notification> notifications = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            try {
+                Notification notification = objectMapper.readValue(message, Notification.class);
+                // createdAt выставляет srv при формировании уведомления: задержка от события до обработки
+                if (notification.getCreatedAt() != null) {
+                    deliveryLag.record(Duration.between(notification.getCreatedAt(), now));
+                }
+                notifications.add(notification);
+            } catch (JsonProcessingException e) {
+                // Некорректное сообщение не должно отбрасывать всю пачку
+                meterRegistry.counter("notifications.malformed").increment();
+                log.warn("Skipped malformed notification: {}", message);
+            }
         }
 
+        notificationService.saveAll(notifications);
 
+        meterRegistry.counter("notifications.consumed").increment(notifications.size());
+        sample.stop(meterRegistry.timer("notifications.consume"));
     }
 }
@@ -2,7 +2,10 @@ package com.example.messagebrokers.controllers;
 
 import com.example.messagebrokers.models.Notification;
 import com.example.messagebrokers.repository.NotificationRepository;
+import com.example.messagebrokers.service.NotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,19 +18,62 @@ import java.util.List;
 @RequiredArgsConstructor
 public class NotificationController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final NotificationRepository repository;
+    private final NotificationService notificationService;
+
+    @Value("${notifications.list.max-size}")
+    private int listMaxSize;
+
+    // Непрочитанные уведомления от новых к старым.
+    // cursor - id, с которого продолжать (из заголовка X-Next-Cursor), since - вернуть только уведомления новее этого id
     @GetMapping("/{userId}")
-    public ResponseEntity<List<Notification>> getNotifications(@PathVariable Long userId) {
-        List<Notification> notifications = repository.findIsNotReadByUserId(userId);
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<List<Notification>> getNotifications(@PathVariable Long userId,
+                                                               @RequestParam(required = false) Long cursor,
+                                                               @RequestParam(required = false) Long since,
+                                                               @RequestParam(defaultValue = "50") int size) {
+        if (size < 1 || size > listMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and %d".formatted(listMaxSize));
+        }
+
+        List<Notification> notifications = repository.findIsNotReadByUserId(
+                userId,
+                cursor != null ? cursor : Long.MAX_VALUE,
+                since != null ? since : 0L,
+                PageRequest.of(0, size + 1)
+        );
+
+        if (notifications.size() <= size) {
+            return ResponseEntity.ok(notifications);
+        }
+
+        List<Notification> page = notifications.subList(0, size);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()))
+                .body(page);
+    }
+
+    // Количество непрочитанных из счетчика, без подсчета строк notifications
+    @GetMapping("/{userId}/unread-count")
+    public ResponseEntity<Long> getUnreadCount(@PathVariable Long userId) {
+        return ResponseEntity.ok(notificationService.getUnreadCount(userId));
+    }
+
+    // Прочтение пачки уведомлений одним запросом. Без тела или с пустым списком - прочтение всех непрочитанных.
+    // Возвращает количество прочитанных уведомлений
+    @PutMapping("/read")
+    public ResponseEntity<Integer> markAsRead(@RequestParam Long userId,
+                                              @RequestBody(required = false) List<Long> ids) {
+        return ResponseEntity.ok(notificationService.markAsRead(userId, ids));
     }
 
     @PutMapping("/{id}/read")
     public ResponseEntity<Void> markAsRead(@PathVariable Long id, @RequestParam Long userId) {
-        Notification notification = repository.findByIdAndUserId(id, userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Notification not found"));
-        notification.setIsRead(true);
-        repository.save(notification);
+        int updated = notificationService.markAsRead(userId, List.of(id));
+        if (updated == 0 && !notificationService.exists(id, userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Notification not found");
+        }
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+}
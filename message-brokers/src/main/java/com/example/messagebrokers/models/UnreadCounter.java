@@ -0,0 +1,23 @@
+package com.example.messagebrokers.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Data
+@Entity
+@Table(name = "notification_unread_counters")
+public class UnreadCounter {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long unreadCount;
+
+    // Номер изменения непрочитанных уведомлений пользователя: растет при каждом сохранении и прочтении
+    @Column(nullable = false)
+    private Long version;
+}
@@ -1,21 +1,35 @@
 package com.example.messagebrokers.repository;
 
 import com.example.messagebrokers.models.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
-    @Query("select s from Notification s where s.userId=:userId and s.isRead=false")
-    List<Notification> findIsNotReadByUserId(@Param("userId") Long userId);
+    // Использует частичный индекс notifications_user_id_unread_idx (user_id, id) where is_read = false
+    @Query("select s from Notification s where s.userId=:userId and s.isRead=false and s.id<:beforeId and s.id>:sinceId order by s.id desc")
+    List<Notification> findIsNotReadByUserId(@Param("userId") Long userId,
+                                             @Param("beforeId") Long beforeId,
+                                             @Param("sinceId") Long sinceId,
+                                             Pageable pageable);
 
-    @Query("select s from Notification s where s.id=:id and s.userId=:userId")
-    Optional<Notification> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    boolean existsByIdAndUserId(Long id, Long userId);
 
-}
\ No newline at end of file
+    // Возвращают количество реально прочитанных уведомлений - на него уменьшается счетчик непрочитанных
+    @Modifying
+    @Query("update Notification s set s.isRead=true where s.userId=:userId and s.isRead=false and s.id in :ids")
+    int markAsRead(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Notification s set s.isRead=true where s.userId=:userId and s.isRead=false")
+    int markAllAsRead(@Param("userId") Long userId);
+
+}
@@ -0,0 +1,37 @@
+package com.example.messagebrokers.repository;
+
+import com.example.messagebrokers.models.UnreadCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UnreadCounterRepository extends JpaRepository<UnreadCounter, Long> {
+
+    // Атомарное изменение счетчика: параллельные консьюмеры и запросы на прочтение не теряют обновления.
+    // Версия увеличивается в той же транзакции, что и изменение уведомлений
+    @Modifying
+    @Query(value = """
+            insert into notification_unread_counters (user_id, unread_count, version) values (:userId, greatest(:delta, 0), 1)
+            on conflict (user_id) do update
+            set unread_count = greatest(notification_unread_counters.unread_count + :delta, 0),
+                version = notification_unread_counters.version + 1
+            """, nativeQuery = true)
+    void add(@Param("userId") Long userId, @Param("delta") long delta);
+
+    // Скалярная выборка, а не сущности: значения читаются из БД, а не из контекста персистентности
+    @Query("select c.userId as userId, c.version as version from UnreadCounter c where c.userId in :userIds")
+    List<CounterVersion> findVersions(@Param("userIds") Collection<Long> userIds);
+
+    interface CounterVersion {
+        Long getUserId();
+
+        Long getVersion();
+    }
+
+}
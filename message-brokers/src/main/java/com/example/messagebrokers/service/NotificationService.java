@@ -0,0 +1,65 @@
+package com.example.messagebrokers.service;
+
+import com.example.messagebrokers.models.Notification;
+import com.example.messagebrokers.models.UnreadCounter;
+import com.example.messagebrokers.repository.NotificationRepository;
+import com.example.messagebrokers.repository.UnreadCounterRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class NotificationService {
+
+    private final NotificationRepository notificationRepository;
+    private final UnreadCounterRepository unreadCounterRepository;
+    private final NotificationVersionPublisher notificationVersionPublisher;
+
+    // Вся пачка сохраняется одной транзакцией, вставки объединяются JDBC batching.
+    // Счетчики непрочитанных увеличиваются одним запросом на пользователя, а не на уведомление.
+    // Строки счетчиков блокируются по возрастанию userId: параллельные консьюмеры берут блокировки в одном порядке
+    // и не попадают в deadlock (пачка с отклоненной транзакцией не возвращается в очередь и была бы потеряна)
+    @Transactional
+    public void saveAll(List<Notification> notifications) {
+        notificationRepository.saveAll(notifications);
+
+        Map<Long, Long> unreadByUser = notifications.stream()
+                .map(Notification::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(userId -> userId, TreeMap::new, Collectors.counting()));
+        unreadByUser.forEach(unreadCounterRepository::add);
+        notificationVersionPublisher.publishAfterCommit(unreadByUser.keySet());
+    }
+
+    // Прочтение переданных уведомлений пользователя одним UPDATE, если ids пустой - всех непрочитанных
+    @Transactional
+    public int markAsRead(Long userId, Collection<Long> ids) {
+        int updated = ids == null || ids.isEmpty()
+                ? notificationRepository.markAllAsRead(userId)
+                : notificationRepository.markAsRead(userId, ids);
+
+        if (updated > 0) {
+            unreadCounterRepository.add(userId, -updated);
+            notificationVersionPublisher.publishAfterCommit(List.of(userId));
+        }
+        return updated;
+    }
+
+    public boolean exists(Long id, Long userId) {
+        return notificationRepository.existsByIdAndUserId(id, userId);
+    }
+
+    public long getUnreadCount(Long userId) {
+        return unreadCounterRepository.findById(userId)
+                .map(UnreadCounter::getUnreadCount)
+                .orElse(0L);
+    }
+}
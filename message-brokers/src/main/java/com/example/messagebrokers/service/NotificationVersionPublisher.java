@@ -0,0 +1,87 @@
+package com.example.messagebrokers.service;
+
+import com.example.messagebrokers.repository.UnreadCounterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+// Публикация версии непрочитанных уведомлений пользователя в Redis для условного GET /notification/list в srv.
+// Версия читается из notification_unread_counters в транзакции изменения, уже после приращения счетчика: строка
+// заблокирована до коммита, поэтому прочитано ровно то значение, которое будет зафиксировано.
+// Перед коммитом ключ удаляется, после коммита записывается версия, поэтому srv не выдает ETag, пока изменение
+// не сохранено, и не отдает 304 по старой версии, если публикация не удалась.
+// Запись только увеличивает значение: коммиты параллельных транзакций могут публиковаться в любом порядке
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationVersionPublisher {
+
+    // Ключ читает srv (NotificationVersionService)
+    public static final String KEY_PREFIX = "message-brokers:notification-versions:";
+
+    private static final RedisScript<Long> SET_IF_GREATER = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current and tonumber(current) >= tonumber(ARGV[1]) then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final UnreadCounterRepository unreadCounterRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${notifications.version.ttl}")
+    private Duration ttl;
+
+    // Вызывается в транзакции после изменения счетчиков пользователей
+    public void publishAfterCommit(Collection<Long> userIds) {
+        List<UnreadCounterRepository.CounterVersion> versions = unreadCounterRepository.findVersions(userIds);
+        Set<Long> ids = Set.copyOf(userIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                invalidate(ids);
+            }
+
+            @Override
+            public void afterCommit() {
+                publish(versions);
+            }
+        });
+    }
+
+    // Ошибка Redis не откатывает уведомления: без ключа srv отвечает без ETag до следующего изменения
+    private void invalidate(Collection<Long> userIds) {
+        try {
+            redisTemplate.delete(userIds.stream().map(userId -> KEY_PREFIX + userId).toList());
+        } catch (DataAccessException e) {
+            log.warn("Failed to invalidate notification versions of users {}: {}", userIds, e.toString());
+        }
+    }
+
+    private void publish(List<UnreadCounterRepository.CounterVersion> versions) {
+        for (UnreadCounterRepository.CounterVersion version : versions) {
+            try {
+                redisTemplate.execute(SET_IF_GREATER,
+                        List.of(KEY_PREFIX + version.getUserId()),
+                        String.valueOf(version.getVersion()),
+                        String.valueOf(ttl.toMillis()));
+            } catch (DataAccessException e) {
+                log.warn("Failed to publish notification version of user {}: {}", version.getUserId(), e.toString());
+            }
+        }
+    }
+}
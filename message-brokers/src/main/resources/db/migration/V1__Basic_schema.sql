@@ -0,0 +1,9 @@
+-- Схема, которую раньше создавал Hibernate (ddl-auto: update). if not exists - для уже развернутых БД
+create table if not exists notifications (
+    id bigint generated by default as identity primary key,
+    user_id bigint,
+    message varchar(255),
+    is_read boolean,
+    created_at timestamp(6),
+    type varchar(255) check ( type in ('TASK_CREATED', 'TASK_COMMENTED', 'TASK_STATUS_UPDATED') )
+);
@@ -0,0 +1,7 @@
+-- Последовательность с шагом 50 под pooled-генератор Hibernate: id выделяются пачкой без обращения к БД на каждую запись,
+-- что позволяет пакетную вставку (с IDENTITY Hibernate вынужден вставлять строки по одной)
+create sequence if not exists notifications_seq increment by 50;
+
+-- pooled-генератор Hibernate отдает диапазон (значение - 49 .. значение), поэтому следующее значение последовательности
+-- должно быть max(id) + 50, иначе первый выделенный диапазон пересекается с уже существующими id
+select setval('notifications_seq', (select greatest(max(id), 0) + 50 from notifications), false);
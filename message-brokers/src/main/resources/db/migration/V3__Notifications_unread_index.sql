@@ -0,0 +1,3 @@
+-- Частичный индекс только по непрочитанным: выборка непрочитанных пользователя с курсором по id
+-- не зависит от количества прочитанных уведомлений
+create index if not exists notifications_user_id_unread_idx on notifications (user_id, id) where is_read = false;
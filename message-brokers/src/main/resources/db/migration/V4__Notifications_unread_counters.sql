@@ -0,0 +1,12 @@
+-- Счетчик непрочитанных уведомлений пользователя. Поддерживается приложением при сохранении и прочтении уведомлений,
+-- чтобы запрос количества не считал строки notifications
+create table if not exists notification_unread_counters (
+    user_id bigint primary key,
+    unread_count bigint not null default 0
+);
+
+insert into notification_unread_counters (user_id, unread_count)
+select user_id, count(*) from notifications
+where is_read = false and user_id is not null
+group by user_id
+on conflict (user_id) do update set unread_count = excluded.unread_count;
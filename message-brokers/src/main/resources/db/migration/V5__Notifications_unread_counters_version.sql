@@ -0,0 +1,3 @@
+-- Версия непрочитанных уведомлений пользователя для условного GET /notification/list в srv.
+-- Увеличивается вместе со счетчиком и после коммита публикуется в Redis (NotificationVersionPublisher)
+alter table notification_unread_counters add column if not exists version bigint not null default 0;
@@ -2,6 +2,8 @@ plugins {
     java
     id("org.springframework.boot") version "3.4.1"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.2"
+    id("io.gatling.gradle") version "3.13.1"
 }
 
 group = "com.borovkov"
@@ -30,6 +32,20 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-redis")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-aop")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+
+    // https://mvnrepository.com/artifact/io.micrometer/micrometer-registry-prometheus
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+
+    // https://mvnrepository.com/artifact/org.apache.httpcomponents.client5/httpclient5
+    implementation("org.apache.httpcomponents.client5:httpclient5")
+
+    // https://mvnrepository.com/artifact/io.github.resilience4j/resilience4j-spring-boot3
+    implementation("io.github.resilience4j:resilience4j-spring-boot3:2.2.0")
+
+    // https://mvnrepository.com/artifact/com.github.ben-manes.caffeine/caffeine
+    implementation("com.github.ben-manes.caffeine:caffeine")
 
     // https://mvnrepository.com/artifact/io.jsonwebtoken/jjwt-api
     implementation("io.jsonwebtoken:jjwt-api:0.12.6")
@@ -58,6 +74,9 @@ dependencies {
     annotationProcessor("org.projectlombok:lombok")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.springframework.security:spring-security-test")
+    testImplementation("org.springframework.boot:spring-boot-testcontainers")
+    testImplementation("org.testcontainers:junit-jupiter")
+    testImplementation("org.testcontainers:postgresql")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
@@ -65,6 +84,58 @@ tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    // ./gradlew jmh -PvirtualThreads - форк бенчмарков на JDK 21 (нужно для VirtualThreadsBenchmark)
+    if (project.hasProperty("virtualThreads")) {
+        jvm.set(javaToolchains.launcherFor {
+            languageVersion = JavaLanguageVersion.of(21)
+        }.get().executablePath.asFile.absolutePath)
+    } else {
+        // На JDK 17 виртуальных потоков нет: вариант пропускается, чтобы в результатах не было ошибок
+        excludes.add("VirtualThreadsBenchmark\\.virtualThreads")
+    }
+}
+
+// ./gradlew jmhBaseline -PbaselineName=<commit> - прогон бенчмарков и сохранение результатов как базовых для сравнения
+// между коммитами. Базовые результаты снимаются на одной и той же машине, сравнивать их удобно в jmh.morethan.io
+tasks.register("jmhBaseline") {
+    // Сохраняются только результаты текущего прогона jmh, а не оставшийся от прошлых запусков файл
+    dependsOn(tasks.named("jmh"))
+    val baselineName = project.findProperty("baselineName")?.toString() ?: "baseline"
+    val results = layout.buildDirectory.file("results/jmh/results.json")
+    val baseline = layout.projectDirectory.file("src/jmh/baselines/$baselineName.json")
+    doLast {
+        val resultsFile = results.get().asFile
+        if (!resultsFile.exists()) {
+            throw GradleException("JMH results not found: $resultsFile")
+        }
+        resultsFile.copyTo(baseline.asFile, overwrite = true)
+    }
+}
+
+// Нагрузочный тест: стенд поднимается из load-test/docker-compose.yml, затем
+// ./gradlew gatlingRun -DbaseUrl=http://localhost:8080 -Dgroups=20 -DtasksPerGroup=5000 -Drate=200 -Dduration=300
+gatling {
+    systemProperties = listOf("baseUrl", "groups", "usersPerGroup", "tasksPerGroup", "commentsPerTask", "rate", "ramp", "duration")
+            .mapNotNull { key -> System.getProperty(key)?.let { key to it } }
+            .toMap()
+}
+
+// ./gradlew bootRun -PvirtualThreads - запуск в режиме виртуальных потоков (нужен JDK 21).
+// jdk.tracePinnedThreads печатает стек каждый раз, когда виртуальный поток закрепляется за потоком-носителем
+tasks.named<org.springframework.boot.gradle.tasks.run.BootRun>("bootRun") {
+    if (project.hasProperty("virtualThreads")) {
+        javaLauncher.set(javaToolchains.launcherFor {
+            languageVersion = JavaLanguageVersion.of(21)
+        })
+        environment("VIRTUAL_THREADS_ENABLED", "true")
+        jvmArgs("-Djdk.tracePinnedThreads=short")
+    }
+}
+
 springBoot {
     mainClass.set("com.borovkov.srv.SrvApplication")
 }
@@ -0,0 +1,2 @@
+-- srv и message-brokers на стенде используют один экземпляр PostgreSQL с разными базами
+create database message_brokers;
@@ -0,0 +1,139 @@
+package com.borovkov.srv.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Наполнение стенда через публичный API srv: группы (администратор + пользователи), задачи и комментарии.
+// Имена содержат runId, поэтому повторный прогон на той же базе не конфликтует с предыдущим
+public class SeedData {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    // Размер пачки для POST /tasks/bulk
+    private static final int TASKS_CHUNK = 1000;
+    private static final String PASSWORD = "load-test-password";
+
+    public record Group(String adminToken, List<String> userTokens, List<Long> userIds, List<Long> taskIds) {
+
+        public String randomUserToken() {
+            return userTokens.get(ThreadLocalRandom.current().nextInt(userTokens.size()));
+        }
+
+        public Long randomUserId() {
+            return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+        }
+
+        public Long randomTaskId() {
+            return taskIds.get(ThreadLocalRandom.current().nextInt(taskIds.size()));
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    public SeedData(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public List<Group> seed(int groups, int usersPerGroup, int tasksPerGroup, int commentsPerTask) {
+        List<Group> result = new ArrayList<>(groups);
+        for (int g = 0; g < groups; g++) {
+            result.add(seedGroup(g, usersPerGroup, tasksPerGroup, commentsPerTask));
+        }
+        return result;
+    }
+
+    private Group seedGroup(int group, int usersPerGroup, int tasksPerGroup, int commentsPerTask) {
+        String adminName = "lt-%s-admin-%d".formatted(runId, group);
+        String adminToken = extract(TOKEN, post("/auth/register", null, credentials(adminName)));
+
+        List<Long> userIds = new ArrayList<>(usersPerGroup);
+        List<String> userTokens = new ArrayList<>(usersPerGroup);
+        for (int u = 0; u < usersPerGroup; u++) {
+            String username = "lt-%s-user-%d-%d".formatted(runId, group, u);
+            userIds.add(Long.valueOf(extract(ID, post("/user/create", adminToken, credentials(username)))));
+            userTokens.add(extract(TOKEN, post("/auth/login", null, credentials(username))));
+        }
+
+        List<Long> taskIds = new ArrayList<>(tasksPerGroup);
+        for (int from = 0; from < tasksPerGroup; from += TASKS_CHUNK) {
+            int to = Math.min(from + TASKS_CHUNK, tasksPerGroup);
+            StringBuilder body = new StringBuilder("[");
+            for (int t = from; t < to; t++) {
+                if (t > from) {
+                    body.append(',');
+                }
+                body.append(taskJson(null, "Load test task %d-%d".formatted(group, t), userIds.get(t % userIds.size()), "NEW"));
+            }
+            body.append(']');
+
+            Matcher ids = NUMBER.matcher(post("/tasks/bulk", adminToken, body.toString()));
+            while (ids.find()) {
+                taskIds.add(Long.valueOf(ids.group()));
+            }
+        }
+
+        for (Long taskId : taskIds) {
+            for (int c = 0; c < commentsPerTask; c++) {
+                post("/comments/%d/create".formatted(taskId), userTokens.get(c % userTokens.size()),
+                        "{\"content\":\"Load test comment %d\"}".formatted(c));
+            }
+        }
+
+        return new Group(adminToken, userTokens, userIds, taskIds);
+    }
+
+    static String taskJson(Long id, String title, Long assignedTo, String status) {
+        return "{%s\"title\":\"%s\",\"description\":\"Generated by the load test\",\"assignedTo\":%d,\"status\":\"%s\"}"
+                .formatted(id == null ? "" : "\"id\":%d,".formatted(id), title, assignedTo, status);
+    }
+
+    private String credentials(String username) {
+        return "{\"username\":\"%s\",\"password\":\"%s\"}".formatted(username, PASSWORD);
+    }
+
+    private String post(String path, String token, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(1))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        try {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException("Seeding request %s failed with %d: %s".formatted(path, response.statusCode(), response.body()));
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new IllegalStateException("Seeding request " + path + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seeding interrupted", e);
+        }
+    }
+
+    private static String extract(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + body);
+        }
+        return matcher.group(1);
+    }
+}
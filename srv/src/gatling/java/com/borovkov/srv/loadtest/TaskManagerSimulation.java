@@ -0,0 +1,116 @@
+package com.borovkov.srv.loadtest;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+// Смешанная нагрузка на srv. Перед прогоном стенд наполняется через API (SeedData).
+// Параметры задаются системными свойствами, например:
+// ./gradlew gatlingRun -Dgroups=20 -DusersPerGroup=10 -DtasksPerGroup=5000 -Drate=200 -Dduration=300
+// Отчет Gatling (build/reports/gatling) содержит p50/p75/p95/p99 и пропускную способность по каждому запросу
+public class TaskManagerSimulation extends Simulation {
+
+    private static final String BASE_URL = System.getProperty("baseUrl", "http://localhost:8080");
+    private static final int GROUPS = Integer.getInteger("groups", 5);
+    private static final int USERS_PER_GROUP = Integer.getInteger("usersPerGroup", 5);
+    private static final int TASKS_PER_GROUP = Integer.getInteger("tasksPerGroup", 1000);
+    private static final int COMMENTS_PER_TASK = Integer.getInteger("commentsPerTask", 2);
+
+    // Новых виртуальных пользователей в секунду (открытая модель) и длительности в секундах
+    private static final int RATE = Integer.getInteger("rate", 50);
+    private static final int RAMP = Integer.getInteger("ramp", 30);
+    private static final int DURATION = Integer.getInteger("duration", 120);
+
+    private volatile List<SeedData.Group> groups;
+
+    private final HttpProtocolBuilder protocol = http
+            .baseUrl(BASE_URL)
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json")
+            .shareConnections();
+
+    private final ChainBuilder listTasks = exec(http("GET /tasks/list")
+            .get("/tasks/list")
+            .queryParam("page", "0")
+            .queryParam("size", "20")
+            .queryParam("sort", "createdAt,desk")
+            .header("Authorization", "Bearer #{token}")
+            .check(status().is(200)));
+
+    private final ChainBuilder createTask = exec(http("POST /tasks/create")
+            .post("/tasks/create")
+            .header("Authorization", "Bearer #{token}")
+            .body(StringBody(session -> SeedData.taskJson(null, "Load test created task", session.getLong("assigneeId"), "NEW")))
+            .check(status().is(201)));
+
+    private final ChainBuilder updateTask = exec(http("PUT /tasks/update")
+            .put("/tasks/update")
+            .header("Authorization", "Bearer #{adminToken}")
+            .body(StringBody(session -> SeedData.taskJson(session.getLong("taskId"), "Load test updated task",
+                    session.getLong("assigneeId"), session.getString("status"))))
+            .check(status().is(200)));
+
+    private final ChainBuilder listComments = exec(http("GET /comments/{taskId}/feed")
+            .get("/comments/#{taskId}/feed")
+            .queryParam("size", "20")
+            .header("Authorization", "Bearer #{token}")
+            .check(status().is(200)));
+
+    private final ChainBuilder createComment = exec(http("POST /comments/{taskId}/create")
+            .post("/comments/#{taskId}/create")
+            .header("Authorization", "Bearer #{token}")
+            .body(StringBody("{\"content\":\"Load test comment\"}"))
+            .check(status().is(201)));
+
+    private final ChainBuilder listNotifications = exec(http("GET /notification/list")
+            .get("/notification/list")
+            .header("Authorization", "Bearer #{token}")
+            .check(status().is(200)));
+
+    private final ScenarioBuilder traffic = scenario("Mixed traffic")
+            .feed(Stream.generate(this::nextRecord).iterator())
+            .randomSwitch().on(
+                    percent(35.0).then(listTasks),
+                    percent(10.0).then(createTask),
+                    percent(10.0).then(updateTask),
+                    percent(20.0).then(listComments),
+                    percent(10.0).then(createComment),
+                    percent(15.0).then(listNotifications)
+            );
+
+    {
+        setUp(traffic.injectOpen(
+                rampUsersPerSec(1).to(RATE).during(RAMP),
+                constantUsersPerSec(RATE).during(DURATION)
+        )).protocols(protocol);
+    }
+
+    @Override
+    public void before() {
+        groups = new SeedData(BASE_URL).seed(GROUPS, USERS_PER_GROUP, TASKS_PER_GROUP, COMMENTS_PER_TASK);
+    }
+
+    // Запись фидера: случайная группа, пользователь, исполнитель и задача этой группы
+    private Map<String, Object> nextRecord() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SeedData.Group group = groups.get(random.nextInt(groups.size()));
+
+        Map<String, Object> record = new HashMap<>();
+        record.put("token", group.randomUserToken());
+        record.put("adminToken", group.adminToken());
+        record.put("assigneeId", group.randomUserId());
+        record.put("taskId", group.randomTaskId());
+        record.put("status", random.nextBoolean() ? "IN_PROGRESS" : "NEW");
+        return record;
+    }
+}
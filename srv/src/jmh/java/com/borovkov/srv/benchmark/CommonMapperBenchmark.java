@@ -0,0 +1,88 @@
+package com.borovkov.srv.benchmark;
+
+import com.borovkov.srv.dto.request.TaskRequestDto;
+import com.borovkov.srv.dto.response.CommentResponseDto;
+import com.borovkov.srv.dto.response.TaskResponseDto;
+import com.borovkov.srv.dto.response.UserResponseDto;
+import com.borovkov.srv.mapper.CommonMapper;
+import com.borovkov.srv.models.Comment;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.models.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Маппинг сущностей в DTO и обратно - вызывается на каждый элемент страницы /tasks/list и ленты комментариев
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonMapperBenchmark {
+
+    private CommonMapper mapper;
+    private Task task;
+    private TaskRequestDto taskRequest;
+    private Comment comment;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        mapper = new CommonMapper();
+        LocalDateTime now = LocalDateTime.now();
+
+        task = new Task();
+        task.setId(1L);
+        task.setTitle("Подготовить релиз");
+        task.setDescription("Собрать сборку, прогнать тесты и обновить changelog");
+        task.setStatus(Task.STATUS.IN_PROGRESS);
+        task.setAssignedTo(2L);
+        task.setCreatedBy(1L);
+        task.setGroupId(1L);
+        task.setCreatedAt(now);
+        task.setUpdatedAt(now);
+        task.setDeadline(now.plusDays(3));
+
+        taskRequest = mapper.toTaskRequestDto(task);
+
+        comment = new Comment();
+        comment.setId("65f1c0d2a1b2c3d4e5f60718");
+        comment.setTaskId(1L);
+        comment.setUserId(2L);
+        comment.setContent("Тесты проходят, осталось обновить changelog");
+        comment.setCreatedAt(now);
+        comment.setIsEdited(false);
+        comment.setGroupId(1L);
+
+        user = User.builder()
+                .id(2L)
+                .username("benchmark")
+                .role(User.Role.ROLE_USER)
+                .createdBy(1L)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    @Benchmark
+    public TaskResponseDto taskToResponse() {
+        return mapper.toTaskResponseDto(task);
+    }
+
+    @Benchmark
+    public Task taskRequestToJpa() {
+        return mapper.toTaskJpa(taskRequest);
+    }
+
+    @Benchmark
+    public CommentResponseDto commentToResponse() {
+        return mapper.toCommentResponseDto(comment);
+    }
+
+    @Benchmark
+    public UserResponseDto userToResponse() {
+        return mapper.toUserResponseDto(user);
+    }
+}
@@ -0,0 +1,87 @@
+package com.borovkov.srv.benchmark;
+
+import com.borovkov.srv.models.User;
+import com.borovkov.srv.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость выпуска токена и его проверки в JwtAuthenticationFilter: до и после кэширования ключа и claims
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    static final String SECRET = "53A73E5F1C4E0A2D3B5F2D784E6A1B423D6F247D1F6E5C3A596D635A75327855";
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        jwtService = createJwtService();
+        user = User.builder()
+                .id(1L)
+                .username("benchmark")
+                .role(User.Role.ROLE_ADMIN)
+                .build();
+        token = jwtService.generatedToken(user);
+    }
+
+    // Выпуск токена при /auth/sign-in
+    @Benchmark
+    public String sign() {
+        return jwtService.generatedToken(user);
+    }
+
+    // Прежняя схема: ключ собирается заново и токен разбирается трижды на каждый запрос
+    @Benchmark
+    public boolean verifyWithoutCache() {
+        String username = parse(token).getSubject();
+        return username.equals(user.getUsername())
+                && parse(token).getSubject().equals(user.getUsername())
+                && !parse(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean verifyWithCache() {
+        String username = jwtService.extractUserName(token);
+        return username.equals(user.getUsername()) && jwtService.isTokenValid(token, user);
+    }
+
+    static JwtService createJwtService() throws ReflectiveOperationException {
+        JwtService jwtService = new JwtService(new SimpleMeterRegistry());
+        setField(jwtService, "jwtSigningKey", SECRET);
+        setField(jwtService, "claimsCacheMaxSize", 100_000L);
+        setField(jwtService, "claimsCacheTtl", Duration.ofMinutes(5));
+        jwtService.init();
+        return jwtService;
+    }
+
+    private static Claims parse(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser()
+                .verifyWith(key).build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
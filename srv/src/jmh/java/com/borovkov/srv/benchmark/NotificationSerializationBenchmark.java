@@ -0,0 +1,38 @@
+package com.borovkov.srv.benchmark;
+
+import com.borovkov.srv.models.NotificationType;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.service.NotificationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// Сериализация уведомления в JSON перед записью в outbox - выполняется внутри транзакции создания/обновления задачи
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationSerializationBenchmark {
+
+    private NotificationService notificationService;
+    private Task task;
+
+    @Setup
+    public void setUp() {
+        // ObjectMapper с теми же модулями, что и в приложении (JavaTimeModule для LocalDateTime)
+        notificationService = new NotificationService(Jackson2ObjectMapperBuilder.json().build(), null, null);
+
+        task = new Task();
+        task.setId(1L);
+        task.setTitle("Подготовить релиз");
+        task.setAssignedTo(2L);
+    }
+
+    @Benchmark
+    public String generationNotificationMessage() {
+        return notificationService.generationNotificationMessage(task, "Создана новая задача: Подготовить релиз", NotificationType.TASK_CREATED);
+    }
+}
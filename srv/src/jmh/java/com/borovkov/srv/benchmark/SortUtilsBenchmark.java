@@ -0,0 +1,26 @@
+package com.borovkov.srv.benchmark;
+
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.utils.SortUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+// Разбор параметра sort в /tasks/list: без сортировки и с сортировкой по полю (проверка поля через reflection)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortUtilsBenchmark {
+
+    @Param({"", "createdAt,desk", "deadline,asc"})
+    private String sort;
+
+    @Benchmark
+    public Sort buildSort() {
+        return SortUtils.buildSort(sort, Task.class);
+    }
+}
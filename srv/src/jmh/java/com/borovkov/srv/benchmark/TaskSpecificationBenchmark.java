@@ -0,0 +1,83 @@
+package com.borovkov.srv.benchmark;
+
+import com.borovkov.srv.dto.request.TaskFilter;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.utils.TaskSpecifications;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Построение условий /tasks/list: TaskSpecifications.byFilter и сборка Criteria-предикатов Hibernate.
+// SessionFactory поднимается без подключения к БД - нужен только CriteriaBuilder
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskSpecificationBenchmark {
+
+    private SessionFactory sessionFactory;
+    private CriteriaBuilder builder;
+    private TaskFilter groupOnlyFilter;
+    private TaskFilter fullFilter;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Task.class)
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .setProperty("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .buildSessionFactory();
+        builder = sessionFactory.getCriteriaBuilder();
+
+        groupOnlyFilter = TaskFilter.builder()
+                .groupId(1L)
+                .build();
+
+        OffsetDateTime now = OffsetDateTime.now();
+        fullFilter = TaskFilter.builder()
+                .groupId(1L)
+                .title("релиз")
+                .description("changelog")
+                .status(Task.STATUS.IN_PROGRESS)
+                .userIds(List.of(2L, 3L, 4L))
+                .createdAtFrom(now.minusDays(30))
+                .createdAtTo(now)
+                .updatedAtFrom(now.minusDays(7))
+                .updatedAtTo(now)
+                .deadlineFrom(now)
+                .deadlineTo(now.plusDays(30))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate groupOnly() {
+        return toPredicate(TaskSpecifications.byFilter(groupOnlyFilter));
+    }
+
+    @Benchmark
+    public Predicate allFilters() {
+        return toPredicate(TaskSpecifications.byFilter(fullFilter));
+    }
+
+    private Predicate toPredicate(Specification<Task> spec) {
+        CriteriaQuery<Task> query = builder.createQuery(Task.class);
+        Root<Task> root = query.from(Task.class);
+        return spec.toPredicate(root, query, builder);
+    }
+}
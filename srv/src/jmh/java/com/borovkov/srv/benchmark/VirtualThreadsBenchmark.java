@@ -0,0 +1,87 @@
+package com.borovkov.srv.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение режимов выполнения запросов: пул платформенных потоков размера Tomcat по умолчанию
+// против виртуального потока на запрос. Каждый "запрос" блокируется на ioMillis, как на JDBC или вызове message-brokers.
+// Замер - время обработки inFlight одновременных запросов. Вариант virtualThreads запускается только на JDK 21+:
+// исполнители вынесены в отдельные State, чтобы на JDK 17 создание виртуального не ломало platformThreads
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    // server.tomcat.threads.max по умолчанию
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"200", "1000", "5000"})
+    private int inFlight;
+
+    @Param({"10"})
+    private long ioMillis;
+
+    @State(Scope.Benchmark)
+    public static class PlatformThreads {
+
+        private ExecutorService executor;
+
+        @Setup
+        public void setUp() {
+            executor = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        }
+
+        @TearDown
+        public void tearDown() {
+            executor.shutdownNow();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class VirtualThreads {
+
+        private VirtualThreadTaskExecutor executor;
+
+        @Setup
+        public void setUp() {
+            executor = new VirtualThreadTaskExecutor("benchmark-");
+        }
+    }
+
+    @Benchmark
+    public void platformThreads(PlatformThreads threads) {
+        run(threads.executor);
+    }
+
+    @Benchmark
+    public void virtualThreads(VirtualThreads threads) {
+        run(threads.executor);
+    }
+
+    private void run(Executor executor) {
+        List<CompletableFuture<Void>> requests = new ArrayList<>(inFlight);
+        for (int i = 0; i < inFlight; i++) {
+            requests.add(CompletableFuture.runAsync(this::blockingCall, executor));
+        }
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void blockingCall() {
+        try {
+            Thread.sleep(ioMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.borovkov.srv.cache;
+
+import com.borovkov.srv.models.User;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Снимок пользователя для кэша. Хэш пароля в кэш не попадает: вход проверяется по пользователю из БД
+public record CachedUser(Long id,
+                         String username,
+                         User.Role role,
+                         Long createdBy,
+                         LocalDateTime createdAt,
+                         LocalDateTime updatedAt) implements Serializable {
+
+    public static CachedUser from(User user) {
+        return new CachedUser(
+                user.getId(),
+                user.getUsername(),
+                user.getRole(),
+                user.getCreatedBy(),
+                user.getCreatedAt(),
+                user.getUpdatedAt()
+        );
+    }
+
+    // Новый экземпляр на каждое чтение: закэшированный снимок не разделяется между потоками
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .role(role)
+                .createdBy(createdBy)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.borovkov.srv.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+
+// Двухуровневый кэш: локальный near-кэш (Caffeine) перед общим кэшем в Redis
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<String, Object> nearCache;
+    private final org.springframework.cache.Cache remoteCache;
+    private final BiConsumer<String, String> invalidationPublisher;
+    private final Metrics metrics;
+
+    // Счетчики обращений: попадание в near-кэш, попадание в Redis, промах
+    public record Metrics(Counter nearHits, Counter remoteHits, Counter misses) {
+    }
+
+    public TwoLevelCache(String name,
+                         Cache<String, Object> nearCache,
+                         org.springframework.cache.Cache remoteCache,
+                         BiConsumer<String, String> invalidationPublisher,
+                         Metrics metrics) {
+        super(false);
+        this.name = name;
+        this.nearCache = nearCache;
+        this.remoteCache = remoteCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.metrics = metrics;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return nearCache;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(@NonNull Object key) {
+        String localKey = toLocalKey(key);
+        Object value = nearCache.getIfPresent(localKey);
+        if (value != null) {
+            metrics.nearHits().increment();
+            return value;
+        }
+
+        ValueWrapper wrapper = remoteCache.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            metrics.misses().increment();
+            return null;
+        }
+
+        metrics.remoteHits().increment();
+        nearCache.put(localKey, wrapper.get());
+        return wrapper.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+
+        try {
+            T loaded = valueLoader.call();
+            put(key, loaded);
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        if (value == null) {
+            return;
+        }
+        remoteCache.put(key, value);
+        nearCache.put(toLocalKey(key), value);
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        String localKey = toLocalKey(key);
+        remoteCache.evict(key);
+        nearCache.invalidate(localKey);
+        invalidationPublisher.accept(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        nearCache.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    // Сброс только локального уровня по сообщению от другого узла
+    public void evictLocal(@Nullable String key) {
+        if (key == null) {
+            nearCache.invalidateAll();
+        } else {
+            nearCache.invalidate(key);
+        }
+    }
+
+    private String toLocalKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,118 @@
+package com.borovkov.srv.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    // Разделитель в сообщении инвалидации: <nodeId>|<cacheName>|<key>
+    private static final String SEPARATOR = "|";
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final String invalidationChannel;
+    private final Duration nearTtl;
+    private final long nearMaxSize;
+    private final List<String> cacheNames;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                StringRedisTemplate redisTemplate,
+                                String invalidationChannel,
+                                Duration nearTtl,
+                                long nearMaxSize,
+                                List<String> cacheNames,
+                                MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.invalidationChannel = invalidationChannel;
+        this.nearTtl = nearTtl;
+        this.nearMaxSize = nearMaxSize;
+        this.cacheNames = cacheNames;
+        this.meterRegistry = meterRegistry;
+        setTransactionAware(true);
+    }
+
+    @Override
+    @NonNull
+    protected Collection<? extends Cache> loadCaches() {
+        return cacheNames.stream()
+                .map(this::createCache)
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(@NonNull String name) {
+        return createCache(name);
+    }
+
+    // Обработка сообщения инвалидации, пришедшего из Redis pub/sub
+    public void onInvalidationMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        String key = parts.length == 3 && !parts[2].isEmpty() ? parts[2] : null;
+        TwoLevelCache cache = findTwoLevelCache(parts[1]);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+
+    private TwoLevelCache findTwoLevelCache(String name) {
+        Cache cache = lookupCache(name);
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        return cache instanceof TwoLevelCache twoLevelCache ? twoLevelCache : null;
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache remoteCache = Objects.requireNonNull(remoteCacheManager.getCache(name),
+                "Remote cache " + name + " is not available");
+
+        return new TwoLevelCache(
+                name,
+                Caffeine.newBuilder()
+                        .expireAfterWrite(nearTtl)
+                        .maximumSize(nearMaxSize)
+                        .build(),
+                remoteCache,
+                this::publishInvalidation,
+                new TwoLevelCache.Metrics(
+                        getsCounter(name, "hit", "near"),
+                        getsCounter(name, "hit", "remote"),
+                        getsCounter(name, "miss", "none")
+                )
+        );
+    }
+
+    // cache.gets с тегами result и level: доля попаданий считается как hit / (hit + miss)
+    private Counter getsCounter(String cacheName, String result, String level) {
+        return Counter.builder("cache.gets")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .tag("level", level)
+                .register(meterRegistry);
+    }
+
+    private void publishInvalidation(String cacheName, String key) {
+        String message = nodeId + SEPARATOR + cacheName + SEPARATOR + (key == null ? "" : key);
+        redisTemplate.convertAndSend(invalidationChannel, message);
+    }
+}
@@ -0,0 +1,145 @@
+package com.borovkov.srv.cache;
+
+import com.borovkov.srv.models.User;
+import com.borovkov.srv.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Read-through кэш пользователей по username и id. Хранит CachedUser без пароля,
+// поэтому возвращаемые пользователи годятся для авторизации и отображения, но не для проверки пароля.
+// Чтение из БД и запись в кэш не атомарны: запрос, прочитавший строку до коммита изменения, может положить
+// старую версию уже после сброса. Поэтому после коммита кэш сбрасывается еще раз через second-evict-delay
+@Component
+@RequiredArgsConstructor
+public class UserCache {
+
+    public static final String USERS_BY_USERNAME = "usersByUsername";
+    public static final String USERS_BY_ID = "usersById";
+
+    private final UserRepository repository;
+    private final CacheManager cacheManager;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${cache.users.second-evict-delay}")
+    private Duration secondEvictDelay;
+
+    public Optional<User> findByUsername(String username) {
+        CachedUser cached = byUsername().get(username, CachedUser.class);
+        if (cached != null) {
+            return Optional.of(cached.toUser());
+        }
+        return repository.findByUsername(username).map(this::putAndCopy);
+    }
+
+    public Optional<User> findById(Long id) {
+        CachedUser cached = byId().get(id, CachedUser.class);
+        if (cached != null) {
+            return Optional.of(cached.toUser());
+        }
+        return repository.findById(id).map(this::putAndCopy);
+    }
+
+    // Пакетная загрузка: найденные в кэше берутся из него, остальные одним запросом к БД
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        Map<Long, User> users = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (id == null) {
+                continue;
+            }
+            CachedUser cached = byId().get(id, CachedUser.class);
+            if (cached != null) {
+                users.put(id, cached.toUser());
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            repository.findAllById(missingIds).forEach(user -> users.put(user.getId(), putAndCopy(user)));
+        }
+
+        return users;
+    }
+
+    public void put(User user) {
+        if (user != null) {
+            put(CachedUser.from(user));
+        }
+    }
+
+    // Сброс выполняется после коммита текущей транзакции (кэш транзакционный) и повторяется через secondEvictDelay
+    public void evict(User user) {
+        if (user == null) {
+            return;
+        }
+        String username = user.getUsername();
+        Long id = user.getId();
+        evictNow(username, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    scheduleSecondEvict(username, id);
+                }
+            });
+        } else {
+            scheduleSecondEvict(username, id);
+        }
+    }
+
+    public void evictUsername(String username) {
+        if (username != null) {
+            byUsername().evict(username);
+        }
+    }
+
+    // Загруженный из БД пользователь кладется в кэш, вызывающему возвращается копия без пароля,
+    // как и при попадании в кэш
+    private User putAndCopy(User user) {
+        CachedUser cached = CachedUser.from(user);
+        put(cached);
+        return cached.toUser();
+    }
+
+    private void put(CachedUser user) {
+        byUsername().put(user.username(), user);
+        byId().put(user.id(), user);
+    }
+
+    private void evictNow(String username, Long id) {
+        evictUsername(username);
+        if (id != null) {
+            byId().evict(id);
+        }
+    }
+
+    private void scheduleSecondEvict(String username, Long id) {
+        taskScheduler.schedule(() -> evictNow(username, id), Instant.now().plus(secondEvictDelay));
+    }
+
+    private Cache byUsername() {
+        return cacheManager.getCache(USERS_BY_USERNAME);
+    }
+
+    private Cache byId() {
+        return cacheManager.getCache(USERS_BY_ID);
+    }
+}
@@ -0,0 +1,71 @@
+package com.borovkov.srv.config;
+
+import com.borovkov.srv.cache.TwoLevelCacheManager;
+import com.borovkov.srv.cache.UserCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Value("${cache.redis.ttl}")
+    private Duration redisTtl;
+
+    @Value("${cache.near.ttl}")
+    private Duration nearTtl;
+
+    @Value("${cache.near.max-size}")
+    private long nearMaxSize;
+
+    @Value("${cache.invalidation-channel}")
+    private String invalidationChannel;
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate redisTemplate,
+                                             MeterRegistry meterRegistry) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(redisTtl)
+                        .disableCachingNullValues())
+                .build();
+        redisCacheManager.initializeCaches();
+
+        return new TwoLevelCacheManager(
+                redisCacheManager,
+                redisTemplate,
+                invalidationChannel,
+                nearTtl,
+                nearMaxSize,
+                List.of(UserCache.USERS_BY_USERNAME, UserCache.USERS_BY_ID),
+                meterRegistry
+        );
+    }
+
+    // Подписка на инвалидацию near-кэша, инициированную другими узлами
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> cacheManager.onInvalidationMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(invalidationChannel)
+        );
+        return container;
+    }
+}
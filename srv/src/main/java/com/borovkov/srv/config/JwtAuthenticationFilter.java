@@ -1,18 +1,22 @@
 package com.borovkov.srv.config;
 
+import com.borovkov.srv.cache.UserCache;
+import com.borovkov.srv.models.UserPrincipal;
 import com.borovkov.srv.service.JwtService;
+import com.borovkov.srv.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -28,7 +32,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
 //    private final UserService userService;
-    private final UserDetailsService userDetailsService;
+    private final UserCache userCache;
+    private final TokenRevocationService tokenRevocationService;
+
+    // Аутентификация только по claims токена, без загрузки пользователя из БД
+    @Value("${spring.security.jwt.stateless}")
+    private boolean statelessAuthentication;
 
     @Override
     protected void doFilterInternal(
@@ -49,10 +58,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         var username = jwtService.extractUserName(jwt);
 
         if (StringUtils.isNotEmpty(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = loadUserDetails(jwt, username);
 
             // Если токен валиден, то аутентифицируем пользователя
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null && jwtService.isTokenValid(jwt, userDetails)) {
                 SecurityContext context = SecurityContextHolder.createEmptyContext();
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -68,4 +77,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails loadUserDetails(String jwt, String username) {
+        if (statelessAuthentication) {
+            Claims claims = jwtService.extractAllClaims(jwt);
+            UserPrincipal principal = jwtService.toPrincipal(claims);
+
+            if (principal != null) {
+                // Токен выпущен до смены данных или удаления пользователя
+                if (tokenRevocationService.isRevoked(principal.getId(), jwtService.extractIssuedAtMillis(claims))) {
+                    return null;
+                }
+                return principal;
+            }
+        }
+        // Пароль для аутентификации по токену не нужен, поэтому пользователь берется из кэша
+        return userCache.findByUsername(username).orElse(null);
+    }
 }
@@ -0,0 +1,49 @@
+package com.borovkov.srv.config;
+
+import com.borovkov.srv.models.Comment;
+import com.mongodb.client.model.IndexOptions;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+@Configuration
+@RequiredArgsConstructor
+public class MongoIndexConfig {
+
+    // Язык стемминга для текстового индекса и запросов по нему
+    public static final String TEXT_LANGUAGE = "russian";
+
+    private final MongoTemplate mongoTemplate;
+
+    // Создание индексов при старте. Повторный вызов для существующего индекса ничего не делает
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexOperations commentIndexes = mongoTemplate.indexOps(Comment.class);
+
+        // Лента комментариев задачи: фильтр по taskId + groupId, keyset по (createdAt, _id)
+        commentIndexes.ensureIndex(new Index()
+                .on("taskId", Sort.Direction.ASC)
+                .on("groupId", Sort.Direction.ASC)
+                .on("createdAt", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("taskId_groupId_createdAt_id"));
+
+        // Операции администратора над комментариями своей группы
+        commentIndexes.ensureIndex(new Index()
+                .on("groupId", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("groupId_id"));
+
+        // Полнотекстовый поиск по комментариям группы. groupId - префикс индекса, поэтому поиск не выходит за группу.
+        // Index из Spring Data не умеет сочетать обычное поле с текстовым, индекс создается через драйвер
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Comment.class)).createIndex(
+                new Document("groupId", 1).append("content", "text"),
+                new IndexOptions().name("groupId_content_text").defaultLanguage(TEXT_LANGUAGE));
+    }
+}
@@ -1,5 +1,6 @@
 package com.borovkov.srv.config;
 
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
@@ -34,4 +35,16 @@ public class RabbitMQConfig {
     public Binding binding(Queue queue, DirectExchange exchange) {
         return BindingBuilder.bind(queue).to(exchange).with(routingKey);
     }
+
+    // Временная очередь экземпляра srv для push-уведомлений подключенным клиентам.
+    // Привязана к тому же ключу, поэтому получает копию каждого уведомления и не забирает сообщения у message-brokers
+    @Bean
+    public Queue notificationStreamQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding notificationStreamBinding(Queue notificationStreamQueue, DirectExchange exchange) {
+        return BindingBuilder.bind(notificationStreamQueue).to(exchange).with(routingKey);
+    }
 }
@@ -17,6 +17,7 @@ public class UserDetailsConfig {
 
     private final UserRepository userRepository;
 
+    // Проверка пароля при входе: пользователь читается из БД, в кэше пользователей хэша пароля нет
     @Bean
     public UserDetailsService userDetailsService() {
         return username -> userRepository.findByUsername(username)
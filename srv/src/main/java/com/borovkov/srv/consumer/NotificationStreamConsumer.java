@@ -0,0 +1,40 @@
+package com.borovkov.srv.consumer;
+
+import com.borovkov.srv.dto.notifications.NotificationDTO;
+import com.borovkov.srv.service.NotificationStreamService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+// Раздача уведомлений из RabbitMQ подключенным к push-каналу клиентам этого экземпляра
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationStreamConsumer {
+
+    private final NotificationStreamService notificationStreamService;
+    private final ObjectMapper objectMapper;
+
+    @RabbitListener(queues = "#{notificationStreamQueue.name}")
+    public void listen(Message message) {
+        String messageId = message.getMessageProperties().getMessageId();
+        if (messageId == null) {
+            // Сообщение без id outbox нельзя использовать для возобновления потока
+            return;
+        }
+
+        try {
+            NotificationDTO notification = objectMapper.readValue(
+                    new String(message.getBody(), StandardCharsets.UTF_8), NotificationDTO.class);
+            notificationStreamService.publish(Long.valueOf(messageId), notification);
+        } catch (JsonProcessingException | NumberFormatException e) {
+            log.warn("Skipped malformed notification {}: {}", messageId, e.toString());
+        }
+    }
+}
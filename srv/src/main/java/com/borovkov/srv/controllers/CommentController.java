@@ -2,11 +2,13 @@ package com.borovkov.srv.controllers;
 
 import com.borovkov.srv.dto.request.CommentRequestDto;
 import com.borovkov.srv.dto.response.CommentResponseDto;
+import com.borovkov.srv.dto.response.CursorPageDto;
 import com.borovkov.srv.mapper.CommonMapper;
 import com.borovkov.srv.models.Comment;
-import com.borovkov.srv.models.User;
+import com.borovkov.srv.repositories.CommentsRepositoryCustom;
 import com.borovkov.srv.service.CommentsService;
 import com.borovkov.srv.service.UserService;
+import com.borovkov.srv.utils.ETagUtils;
 import com.borovkov.srv.utils.SortUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,6 +21,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.Principal;
 import java.util.List;
@@ -49,20 +52,58 @@ public class CommentController {
             @RequestParam(required = false)
             String sort,
 
+            WebRequest request,
+
             Principal principal
     ) {
+        Long groupId = userService.getGroupId(principal);
+        if (checkNotModified(request, taskId, groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         Sort sortOrder = SortUtils.buildSort(sort, Comment.class);
         Pageable pageable = PageRequest.of(page, size, sortOrder);
 
-        User user = userService.getUserByUsername(principal.getName());
-
-        Page<Comment> commentPage = commentsService.getCommentsByTaskIdAndGroupId(taskId, userService.getGroupId(user), pageable);
+        Page<Comment> commentPage = commentsService.getCommentsByTaskIdAndGroupId(taskId, groupId, pageable);
         Page<CommentResponseDto> response = commentPage.map(commonMapper::toCommentResponseDto);
         commentsService.initCommentResponseDto(response);
 
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @Operation(summary = "Лента комментариев к задаче с курсорной пагинацией")
+    @GetMapping("/{taskId:\\d+}/feed")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPageDto<CommentResponseDto>> getCommentsFeed(
+            @PathVariable
+            Long taskId,
+
+            @Parameter(description = "Курсор из предыдущего ответа (nextCursor). Для первой страницы не передается")
+            @RequestParam(required = false)
+            String cursor,
+
+            @RequestParam(defaultValue = "10")
+            int size,
+
+            @Parameter(description = "Сначала новые комментарии")
+            @RequestParam(defaultValue = "false")
+            boolean newestFirst,
+
+            WebRequest request,
+
+            Principal principal
+    ) {
+        Long groupId = userService.getGroupId(principal);
+        if (checkNotModified(request, taskId, groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        Sort.Direction direction = newestFirst ? Sort.Direction.DESC : Sort.Direction.ASC;
+        CursorPageDto<CommentResponseDto> response = commentsService.getCommentsByCursor(
+                taskId, groupId, cursor, size, direction);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @Operation(summary = "Создание комментария")
     @PostMapping("/{taskId:\\d+}/create")
     @ResponseStatus(HttpStatus.CREATED)
@@ -105,4 +146,14 @@ public class CommentController {
         List<String> deletedIds = commentsService.deleteComments(ids, principal);
         return new ResponseEntity<>(deletedIds, HttpStatus.OK);
     }
+
+    // Версия комментариев задачи одна на все страницы: ETag относится к конкретному URL, то есть к странице с ее параметрами.
+    // checkNotModified сам выставляет ETag и Last-Modified в ответ
+    private boolean checkNotModified(WebRequest request, Long taskId, Long groupId) {
+        CommentsRepositoryCustom.CommentsVersion version = commentsService.getCommentsVersion(taskId, groupId);
+        String etag = ETagUtils.weak("comments", taskId, version.count(), version.lastModified());
+        return version.lastModified() > 0
+                ? request.checkNotModified(etag, version.lastModified())
+                : request.checkNotModified(etag);
+    }
 }
@@ -1,14 +1,22 @@
 package com.borovkov.srv.controllers;
 
 import com.borovkov.srv.dto.notifications.NotificationDTO;
-import com.borovkov.srv.models.User;
+import com.borovkov.srv.dto.notifications.NotificationPageDto;
 import com.borovkov.srv.service.NotificationService;
+import com.borovkov.srv.service.NotificationStreamService;
+import com.borovkov.srv.service.NotificationVersionService;
 import com.borovkov.srv.service.UserService;
+import com.borovkov.srv.utils.ETagUtils;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.security.Principal;
 import java.util.List;
@@ -19,23 +27,95 @@ import java.util.List;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
+    private final NotificationVersionService notificationVersionService;
     private final UserService userService;
 
-    @Operation(summary = "Получение списка непрочитанных уведомлений по userId")
+    @Value("${notification.list.max-size}")
+    private int listMaxSize;
+
+    @Operation(summary = "Получение списка непрочитанных уведомлений по userId. Следующая страница - по курсору из заголовка X-Next-Cursor")
     @GetMapping("/list")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<List<NotificationDTO>> getNotifications(Principal principal) {
-        User user = userService.getUserByUsername(principal.getName());
-        List<NotificationDTO> notifications = notificationService.getNotification(user.getId());
-        return new ResponseEntity<>(notifications, HttpStatus.OK);
+    public ResponseEntity<List<NotificationDTO>> getNotifications(
+
+            @Parameter(description = "Курсор из заголовка X-Next-Cursor предыдущего ответа")
+            @RequestParam(required = false)
+            Long cursor,
+
+            @Parameter(description = "Вернуть только уведомления с id больше переданного")
+            @RequestParam(required = false)
+            Long since,
+
+            @RequestParam(defaultValue = "50")
+            int size,
+
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            String ifNoneMatch,
+
+            Principal principal
+    ) {
+        // Проверяется до вызова message-brokers: ошибочный запрос не должен учитываться circuit breaker как сбой
+        if (size < 1 || size > listMaxSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and %d".formatted(listMaxSize));
+        }
+
+        Long userId = userService.getUserId(principal);
+
+        // Версия берется из Redis до запроса к message-brokers: при совпадении If-None-Match запроса к нему нет
+        String etag = notificationVersionService.getETag(userId);
+        if (etag != null && ifNoneMatch != null && ETagUtils.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        NotificationPageDto page = notificationService.getNotification(userId, cursor, since, size);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (page.getNextCursor() != null) {
+            response.header(NotificationService.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        if (page.isDegraded()) {
+            response.header(NotificationService.DEGRADED_HEADER, "true");
+        } else if (etag != null) {
+            // Деградированный ответ из кэша не должен закрепляться у клиента этим ETag
+            response.eTag(etag);
+        }
+        return response.body(page.getContent());
+    }
+
+    @Operation(summary = "Push-канал уведомлений (Server-Sent Events). При переподключении продолжает поток после Last-Event-ID")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+
+            @Parameter(description = "id последнего полученного события, браузер передает его автоматически при переподключении")
+            @RequestHeader(value = "Last-Event-ID", required = false)
+            Long lastEventId,
+
+            Principal principal
+    ) {
+        return notificationStreamService.subscribe(userService.getUserId(principal), lastEventId);
     }
 
     @Operation(summary = "Обновление статуса уведомления")
     @PutMapping("/{notificationId}/read")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public ResponseEntity<Void> markAsRead(@PathVariable Long notificationId, Principal principal) {
-        User user = userService.getUserByUsername(principal.getName());
-        notificationService.markNotificationAsRead(notificationId, user.getId());
+        notificationService.markNotificationAsRead(notificationId, userService.getUserId(principal));
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    @Operation(summary = "Прочтение списка уведомлений одним запросом. Без тела или с пустым списком - прочтение всех непрочитанных")
+    @PutMapping("/read")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<Integer> markAllAsRead(@RequestBody(required = false) List<Long> notificationIds, Principal principal) {
+        int updated = notificationService.markNotificationsAsRead(notificationIds, userService.getUserId(principal));
+        return new ResponseEntity<>(updated, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Количество непрочитанных уведомлений")
+    @GetMapping("/unread-count")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<Long> getUnreadCount(Principal principal) {
+        return new ResponseEntity<>(notificationService.getUnreadCount(userService.getUserId(principal)), HttpStatus.OK);
+    }
 }
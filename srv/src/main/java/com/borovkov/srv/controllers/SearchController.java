@@ -0,0 +1,41 @@
+package com.borovkov.srv.controllers;
+
+import com.borovkov.srv.dto.response.SearchHitDto;
+import com.borovkov.srv.service.SearchService;
+import com.borovkov.srv.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/search")
+public class SearchController {
+
+    private final SearchService searchService;
+    private final UserService userService;
+
+    @Operation(summary = "Полнотекстовый поиск по задачам и комментариям группы, по убыванию релевантности")
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<SearchHitDto>> search(
+
+            @Parameter(description = "Поисковый запрос. Поддерживаются \"фразы в кавычках\" и -исключение слов")
+            @RequestParam
+            String q,
+
+            @RequestParam(defaultValue = "20")
+            int size,
+
+            Principal principal
+    ) {
+        List<SearchHitDto> response = searchService.search(q, userService.getGroupId(principal), size);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
@@ -1,35 +1,49 @@
 package com.borovkov.srv.controllers;
 
+import com.borovkov.srv.dto.request.TaskFilter;
+import com.borovkov.srv.dto.request.TaskListRequestDto;
 import com.borovkov.srv.dto.request.TaskRequestDto;
+import com.borovkov.srv.dto.response.CursorPageDto;
+import com.borovkov.srv.dto.response.ImportResultDto;
 import com.borovkov.srv.dto.response.TaskResponseDto;
+import com.borovkov.srv.dto.response.TaskStatsDto;
 import com.borovkov.srv.mapper.CommonMapper;
 import com.borovkov.srv.models.Task;
-import com.borovkov.srv.models.User;
+import com.borovkov.srv.repositories.TaskRepository;
+import com.borovkov.srv.service.ExportService;
+import com.borovkov.srv.service.TaskImportService;
 import com.borovkov.srv.service.TaskService;
+import com.borovkov.srv.service.TaskStatsService;
 import com.borovkov.srv.service.UserService;
+import com.borovkov.srv.utils.ETagUtils;
 import com.borovkov.srv.utils.SortUtils;
+import com.borovkov.srv.utils.TaskSpecifications;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
-import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.Principal;
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
-import static com.borovkov.srv.utils.SpecificationsUtils.*;
-
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/tasks")
@@ -38,6 +52,9 @@ public class TaskController {
     private final TaskService taskService;
     private final UserService userService;
     private final CommonMapper commonMapper;
+    private final TaskStatsService taskStatsService;
+    private final ExportService exportService;
+    private final TaskImportService taskImportService;
 
     @Operation(summary = "Получение списка задач")
     @GetMapping("/list")
@@ -107,52 +124,107 @@ public class TaskController {
             Principal principal
     ) {
 
-        User user = userService.getUserByUsername(principal.getName());
-        Long groupId = userService.getGroupId(user);
-
-        Specification<Task> spec = (root, query, builder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            equal(predicates, builder, root, "groupId", groupId);
-            ilike(predicates, builder, root, "title", title, false);
-            ilike(predicates, builder, root, "description", description, false);
-            if (status != null)
-                ilike(predicates, builder, root, "status", status.name(), true);
-            dateFrom(predicates, builder, root, "createdAt", createdAtFrom);
-            dateTo(predicates, builder, root, "createdAt", createdAtTo);
-            dateFrom(predicates, builder, root, "updatedAt", updatedAtFrom);
-            dateTo(predicates, builder, root, "updatedAt", updatedAtTo);
-            dateFrom(predicates, builder, root, "deadline", deadlineFrom);
-            dateTo(predicates, builder, root, "deadline", deadlineTo);
-
-            List<Long> assignedToIds = (assignedTo != null) ? userService.getIdsByUsernameIgnoreCaseContaining(assignedTo) : null;
-            List<Long> createdByIds = (createdBy != null) ? userService.getIdsByUsernameIgnoreCaseContaining(createdBy) : null;
-
-            if (assignedToIds != null && createdByIds != null) {
-                assignedToIds.addAll(createdByIds);
-            } else if (assignedToIds == null) {
-                assignedToIds = createdByIds;
-            }
-
-            if (assignedToIds != null && !assignedToIds.isEmpty()) {
-                predicates.add(root.get("assignedTo").in(assignedToIds));
-            }
-
-            return builder.and(predicates.toArray(new Predicate[0]));
-        };
+        TaskListRequestDto request = TaskListRequestDto.builder()
+                .title(title)
+                .description(description)
+                .status(status)
+                .assignedTo(assignedTo)
+                .createdBy(createdBy)
+                .createdAtFrom(createdAtFrom)
+                .createdAtTo(createdAtTo)
+                .updatedAtFrom(updatedAtFrom)
+                .updatedAtTo(updatedAtTo)
+                .deadlineFrom(deadlineFrom)
+                .deadlineTo(deadlineTo)
+                .build();
+
+        Specification<Task> spec = TaskSpecifications.byFilter(buildTaskFilter(request, principal));
 
         Sort sortOrder = SortUtils.buildSort(sort, Task.class);
         Pageable pageable = PageRequest.of(page, size, sortOrder);
 
         Page<Task> taskPage = taskService.getAllTasks(spec, pageable);
-        Page<TaskResponseDto> response = taskPage.map(commonMapper::toTaskResponseDto);
+        Page<TaskResponseDto> response = taskService.initTaskResponseDto(taskPage);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Получение списка задач с курсорной пагинацией")
+    @GetMapping("/list/cursor")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<CursorPageDto<TaskResponseDto>> getTasksByCursor(
+
+            @ParameterObject
+            TaskListRequestDto request,
+
+            @Parameter(description = "Курсор из предыдущего ответа (nextCursor). Для первой страницы не передается")
+            @RequestParam(required = false)
+            String cursor,
+
+            @RequestParam(defaultValue = "10")
+            int size,
+
+            @Parameter(description = "Параметры сортировки, например: 'createdAt,desk'")
+            @RequestParam(required = false)
+            String sort,
+
+            @Parameter(description = "Посчитать общее количество задач (отдельный запрос count)")
+            @RequestParam(defaultValue = "false")
+            boolean withTotal,
+
+            Principal principal
+    ) {
+        Specification<Task> spec = TaskSpecifications.byFilter(buildTaskFilter(request, principal));
+        Sort.Order order = SortUtils.buildSort(sort, Task.class).iterator().next();
 
+        CursorPageDto<TaskResponseDto> response = taskService.getTasksByCursor(spec, order, cursor, size, withTotal);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @Operation(summary = "Статистика задач группы: по статусам, исполнителям и срокам")
+    @GetMapping("/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<TaskStatsDto> getTaskStats(Principal principal) {
+        TaskStatsDto response = taskStatsService.getStats(userService.getGroupId(principal));
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Потоковая выгрузка всех задач и комментариев группы в NDJSON или CSV")
+    @GetMapping("/export")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<StreamingResponseBody> exportTasks(
+
+            @Parameter(description = "Формат выгрузки")
+            @RequestParam(defaultValue = "NDJSON")
+            ExportService.Format format,
+
+            @Parameter(description = "Сжимать выгрузку gzip на лету")
+            @RequestParam(defaultValue = "false")
+            boolean gzip,
+
+            Principal principal
+    ) {
+        Long groupId = userService.getGroupId(principal);
+        String filename = "tasks-%d.%s%s".formatted(groupId, format.getExtension(), gzip ? ".gz" : "");
+
+        StreamingResponseBody body = out -> exportService.export(groupId, format, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
     @Operation(summary = "Получение задачи по id")
     @GetMapping("/{id:\\d+}")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<TaskResponseDto> getTask(@PathVariable Long id, Principal principal) {
+    public ResponseEntity<TaskResponseDto> getTask(@PathVariable Long id, WebRequest request, Principal principal) {
+        // Сначала дешевая проверка версии: при совпадении If-None-Match / If-Modified-Since задача не загружается.
+        // checkNotModified сам выставляет ETag и Last-Modified в ответ
+        TaskRepository.TaskVersion version = taskService.getVersion(id, principal);
+        if (request.checkNotModified(ETagUtils.task(id, version.getUpdatedAt()), ETagUtils.toEpochMillis(version.getUpdatedAt()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         TaskResponseDto response = taskService.getByIdForController(id, principal);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
@@ -169,10 +241,49 @@ public class TaskController {
     @Operation(summary = "Обновление задачи")
     @PutMapping("/update")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<TaskResponseDto> updateTaskForUser(@RequestBody TaskRequestDto request, Principal principal) {
+    public ResponseEntity<TaskResponseDto> updateTaskForUser(
+
+            @RequestBody
+            TaskRequestDto request,
+
+            @Parameter(description = "ETag задачи из предыдущего ответа. Если задачу успели изменить, вернется 412")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            String ifMatch,
+
+            Principal principal
+    ) {
         Task task = commonMapper.toTaskJpa(request);
-        TaskResponseDto response = taskService.updateForController(task, principal);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        TaskResponseDto response = taskService.updateForController(task, ifMatch, principal);
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.task(response.getId(), response.getUpdatedAt()))
+                .lastModified(ETagUtils.toEpochMillis(response.getUpdatedAt()))
+                .body(response);
+    }
+
+    @Operation(summary = "Пакетное создание и обновление задач: задачи без id создаются, с id - обновляются. Возвращает id задач в порядке запроса")
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<List<Long>> bulkSaveTasks(@RequestBody List<TaskRequestDto> request, Principal principal) {
+        List<Task> tasks = request.stream()
+                .map(commonMapper::toTaskJpa)
+                .toList();
+        return ResponseEntity.ok(taskService.bulkSave(tasks, principal));
+    }
+
+    @Operation(summary = "Потоковый импорт задач из NDJSON, в том числе сжатого gzip: одна задача в строке. Возвращает отчет с ошибками по номерам строк")
+    @PostMapping("/import")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<ImportResultDto> importTasks(
+
+            InputStream body,
+
+            @Parameter(description = "Отправлять исполнителям уведомления: одно на исполнителя за порцию")
+            @RequestParam(defaultValue = "true")
+            boolean notify,
+
+            Principal principal
+    ) throws IOException {
+        return ResponseEntity.ok(taskImportService.importTasks(body, notify, principal));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -182,4 +293,32 @@ public class TaskController {
         List<Long> deletedIds = taskService.deleteTasks(ids, principal);
         return ResponseEntity.ok(deletedIds);
     }
+
+    private TaskFilter buildTaskFilter(TaskListRequestDto request, Principal principal) {
+        Long groupId = userService.getGroupId(principal);
+
+        // Пользователей ищем один раз до запроса, а не внутри Specification (она вызывается и для count)
+        List<Long> assignedToIds = (request.getAssignedTo() != null) ? userService.getIdsByUsernameIgnoreCaseContaining(request.getAssignedTo()) : null;
+        List<Long> createdByIds = (request.getCreatedBy() != null) ? userService.getIdsByUsernameIgnoreCaseContaining(request.getCreatedBy()) : null;
+
+        if (assignedToIds != null && createdByIds != null) {
+            assignedToIds.addAll(createdByIds);
+        } else if (assignedToIds == null) {
+            assignedToIds = createdByIds;
+        }
+
+        return TaskFilter.builder()
+                .groupId(groupId)
+                .title(request.getTitle())
+                .description(request.getDescription())
+                .status(request.getStatus())
+                .userIds(assignedToIds)
+                .createdAtFrom(request.getCreatedAtFrom())
+                .createdAtTo(request.getCreatedAtTo())
+                .updatedAtFrom(request.getUpdatedAtFrom())
+                .updatedAtTo(request.getUpdatedAtTo())
+                .deadlineFrom(request.getDeadlineFrom())
+                .deadlineTo(request.getDeadlineTo())
+                .build();
+    }
 }
@@ -1,13 +1,17 @@
 package com.borovkov.srv.dto.notifications;
 
 import com.borovkov.srv.models.NotificationType;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class NotificationDTO {
 
     private Long id;
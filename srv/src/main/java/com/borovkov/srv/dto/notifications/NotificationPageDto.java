@@ -0,0 +1,19 @@
+package com.borovkov.srv.dto.notifications;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class NotificationPageDto {
+
+    private List<NotificationDTO> content;
+
+    // id, с которого продолжать выборку, null если страниц больше нет
+    private String nextCursor;
+
+    // true, если message-brokers недоступен и отдан кэш последней первой страницы или пустой список
+    private boolean degraded;
+}
@@ -0,0 +1,25 @@
+package com.borovkov.srv.dto.request;
+
+import com.borovkov.srv.models.Task;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class TaskFilter {
+
+    private Long groupId;
+    private String title;
+    private String description;
+    private Task.STATUS status;
+    private List<Long> userIds;
+    private OffsetDateTime createdAtFrom;
+    private OffsetDateTime createdAtTo;
+    private OffsetDateTime updatedAtFrom;
+    private OffsetDateTime updatedAtTo;
+    private OffsetDateTime deadlineFrom;
+    private OffsetDateTime deadlineTo;
+}
@@ -0,0 +1,57 @@
+package com.borovkov.srv.dto.request;
+
+import com.borovkov.srv.models.Task;
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskListRequestDto {
+
+    @Parameter(description = "Название задачи")
+    private String title;
+
+    @Parameter(description = "Описание задачи")
+    private String description;
+
+    @Parameter(description = "Статус задачи")
+    private Task.STATUS status;
+
+    @Parameter(description = "Имя пользователя, которому назначена задача")
+    private String assignedTo;
+
+    @Parameter(description = "Имя пользователя, назначившего задачу")
+    private String createdBy;
+
+    @Parameter(description = "Дата создания задачи. Фильтрация от переданной даты")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime createdAtFrom;
+
+    @Parameter(description = "Дата создания задачи. Фильтрация до переданной даты")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime createdAtTo;
+
+    @Parameter(description = "Дата обновления задачи. Фильтрация от переданной даты")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime updatedAtFrom;
+
+    @Parameter(description = "Дата обновления задачи. Фильтрация до переданной даты")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime updatedAtTo;
+
+    @Parameter(description = "Дедлайн задачи. Фильтрация от переданной даты")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime deadlineFrom;
+
+    @Parameter(description = "Дедлайн задачи. Фильтрация до переданной даты")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private OffsetDateTime deadlineTo;
+}
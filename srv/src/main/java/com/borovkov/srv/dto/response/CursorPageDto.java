@@ -0,0 +1,22 @@
+package com.borovkov.srv.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+
+    private List<T> content;
+
+    // Курсор для запроса следующей страницы, null если страниц больше нет
+    private String nextCursor;
+    private boolean hasNext;
+
+    // Заполняется только по запросу, так как требует отдельного count
+    private Long totalElements;
+}
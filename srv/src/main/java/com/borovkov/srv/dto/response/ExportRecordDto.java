@@ -0,0 +1,22 @@
+package com.borovkov.srv.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Строка выгрузки NDJSON: задача или комментарий
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportRecordDto {
+
+    public enum Type {
+        TASK, COMMENT
+    }
+
+    private Type type;
+    private TaskResponseDto task;
+    private CommentResponseDto comment;
+}
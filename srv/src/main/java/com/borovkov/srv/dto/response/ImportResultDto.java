@@ -0,0 +1,27 @@
+package com.borovkov.srv.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ImportResultDto {
+
+    private long imported;
+    private long failed;
+
+    // Ошибки по номерам строк входного потока. Список ограничен, failed считает все ошибки
+    private List<LineError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,24 @@
+package com.borovkov.srv.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitDto {
+
+    public enum Type {
+        TASK, COMMENT
+    }
+
+    private Type type;
+
+    // Итоговая релевантность после объединения результатов задач и комментариев
+    private double score;
+
+    // Заполнено одно из двух полей в зависимости от type
+    private TaskResponseDto task;
+    private CommentResponseDto comment;
+}
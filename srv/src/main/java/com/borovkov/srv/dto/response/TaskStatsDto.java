@@ -0,0 +1,26 @@
+package com.borovkov.srv.dto.response;
+
+import com.borovkov.srv.models.Task;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskStatsDto {
+
+    public enum DeadlineBucket {
+        OVERDUE, TODAY, WEEK, LATER, NONE
+    }
+
+    private Map<Task.STATUS, Long> byStatus;
+
+    // Ключ - имя исполнителя, по убыванию количества задач
+    private Map<String, Long> byAssignee;
+
+    // Только незавершенные задачи: срок прошел, сегодня, в ближайшие 7 дней, позже, без срока
+    private Map<DeadlineBucket, Long> byDeadline;
+}
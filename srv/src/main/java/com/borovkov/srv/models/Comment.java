@@ -2,6 +2,7 @@ package com.borovkov.srv.models;
 
 import lombok.Data;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.time.LocalDateTime;
 
@@ -16,4 +17,8 @@ public class Comment {
     private Boolean isEdited;
     private LocalDateTime modifiedAt;
     private Long groupId;
+
+    // Релевантность из полнотекстового поиска. Заполняется только в результатах поиска и не сохраняется
+    @TextScore
+    private Float score;
 }
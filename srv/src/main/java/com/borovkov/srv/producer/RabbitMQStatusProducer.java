@@ -1,16 +1,24 @@
 package com.borovkov.srv.producer;
 
+import com.borovkov.srv.models.NotificationOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RabbitMQStatusProducer {
 
 
     private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
 
     @Value("${spring.rabbitmq.template.exchange}")
     private String exchange;
@@ -18,8 +26,29 @@ public class RabbitMQStatusProducer {
     @Value("${spring.rabbitmq.template.routing-key}")
     private String routingKey;
 
+    @Value("${notification.outbox.confirm-timeout-ms}")
+    private long confirmTimeout;
+
     public void sendNotification(String message) {
         rabbitTemplate.convertAndSend(exchange, routingKey, message);
-        System.out.println("Status update sent to RabbitMQ: " + message);
+        log.debug("Status update sent to RabbitMQ: {}", message);
+    }
+
+    // Отправка пачки сообщений в одном канале с ожиданием подтверждений брокера (publisher confirms).
+    // Если хотя бы одно сообщение не подтверждено, выбрасывается исключение.
+    // id записи outbox передается в message-id - по нему клиенты push-канала возобновляют поток
+    public void sendNotifications(List<NotificationOutbox> messages) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        rabbitTemplate.invoke(operations -> {
+            messages.forEach(message -> operations.convertAndSend(exchange, routingKey, message.getPayload(), amqpMessage -> {
+                amqpMessage.getMessageProperties().setMessageId(String.valueOf(message.getId()));
+                return amqpMessage;
+            }));
+            operations.waitForConfirmsOrDie(confirmTimeout);
+            return null;
+        });
+        sample.stop(meterRegistry.timer("notifications.publish"));
+        meterRegistry.counter("notifications.published").increment(messages.size());
+        log.debug("Published {} notifications to RabbitMQ", messages.size());
     }
 }
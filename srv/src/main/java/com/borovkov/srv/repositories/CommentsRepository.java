@@ -10,7 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface CommentsRepository extends MongoRepository<Comment, Long> {
+public interface CommentsRepository extends MongoRepository<Comment, Long>, CommentsRepositoryCustom {
 
     @Query("{ 'taskId': ?0, 'groupId': ?1 }")
     Page<Comment> findByTaskIdAndGroupId(Long taskId, Long groupId, Pageable page);
@@ -0,0 +1,38 @@
+package com.borovkov.srv.repositories;
+
+import com.borovkov.srv.models.Comment;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface CommentsRepositoryCustom {
+
+    // Версия комментариев задачи: количество и время последнего создания или редактирования (epoch millis, 0 - нет комментариев)
+    record CommentsVersion(long count, long lastModified) {
+    }
+
+    List<Comment> findByTaskIdAndGroupIdAfter(Long taskId,
+                                              Long groupId,
+                                              LocalDateTime createdAt,
+                                              String id,
+                                              Sort.Direction direction,
+                                              int limit);
+
+    CommentsVersion findVersionByTaskIdAndGroupId(Long taskId, Long groupId);
+
+    // Только id и groupId - для проверки прав перед массовым удалением
+    List<Comment> findGroupIdsByIdIn(Collection<String> ids);
+
+    long deleteByIdIn(Collection<String> ids);
+
+    long deleteByTaskIdIn(Collection<Long> taskIds);
+
+    // Комментарии группы курсором MongoDB, порциями по batchSize. Stream нужно закрыть
+    Stream<Comment> streamByGroupId(Long groupId, int batchSize);
+
+    // Полнотекстовый поиск в пределах группы, по убыванию релевантности
+    List<Comment> searchByText(Long groupId, String text, int limit);
+}
@@ -0,0 +1,118 @@
+package com.borovkov.srv.repositories;
+
+import com.borovkov.srv.config.MongoIndexConfig;
+import com.borovkov.srv.models.Comment;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class CommentsRepositoryCustomImpl implements CommentsRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    // Keyset-выборка по индексу taskId_groupId_createdAt_id: без skip и без count
+    @Override
+    public List<Comment> findByTaskIdAndGroupIdAfter(Long taskId,
+                                                     Long groupId,
+                                                     LocalDateTime createdAt,
+                                                     String id,
+                                                     Sort.Direction direction,
+                                                     int limit) {
+        Criteria criteria = Criteria.where("taskId").is(taskId).and("groupId").is(groupId);
+
+        if (createdAt != null && id != null) {
+            boolean ascending = direction.isAscending();
+            criteria = criteria.orOperator(
+                    ascending ? Criteria.where("createdAt").gt(createdAt) : Criteria.where("createdAt").lt(createdAt),
+                    new Criteria().andOperator(
+                            Criteria.where("createdAt").is(createdAt),
+                            ascending ? Criteria.where("id").gt(id) : Criteria.where("id").lt(id)
+                    )
+            );
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(direction, "createdAt", "id"))
+                .limit(limit);
+
+        return mongoTemplate.find(query, Comment.class);
+    }
+
+    // Агрегация на стороне MongoDB по индексу taskId_groupId_createdAt_id: в приложение приходит один документ.
+    // Количество учитывает удаления, максимум modifiedAt - редактирование
+    @Override
+    public CommentsVersion findVersionByTaskIdAndGroupId(Long taskId, Long groupId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("taskId").is(taskId).and("groupId").is(groupId)),
+                Aggregation.group()
+                        .count().as("count")
+                        .max("createdAt").as("lastCreated")
+                        .max("modifiedAt").as("lastModified")
+        );
+
+        Document result = mongoTemplate.aggregate(aggregation, Comment.class, Document.class).getUniqueMappedResult();
+        if (result == null) {
+            return new CommentsVersion(0, 0);
+        }
+
+        long lastModified = Math.max(toMillis(result.get("lastCreated")), toMillis(result.get("lastModified")));
+        return new CommentsVersion(((Number) result.get("count")).longValue(), lastModified);
+    }
+
+    @Override
+    public List<Comment> findGroupIdsByIdIn(Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        query.fields().include("id", "groupId");
+        return mongoTemplate.find(query, Comment.class);
+    }
+
+    // Один deleteMany вместо удаления по одному документу
+    @Override
+    public long deleteByIdIn(Collection<String> ids) {
+        return mongoTemplate.remove(new Query(Criteria.where("id").in(ids)), Comment.class).getDeletedCount();
+    }
+
+    @Override
+    public long deleteByTaskIdIn(Collection<Long> taskIds) {
+        return mongoTemplate.remove(new Query(Criteria.where("taskId").in(taskIds)), Comment.class).getDeletedCount();
+    }
+
+    // Идет по индексу groupId_id. Без таймаута простоя курсора: медленный клиент выгрузки может читать дольше 10 минут,
+    // курсор закрывается вместе со Stream
+    @Override
+    public Stream<Comment> streamByGroupId(Long groupId, int batchSize) {
+        Query query = new Query(Criteria.where("groupId").is(groupId))
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .cursorBatchSize(batchSize)
+                .noCursorTimeout();
+        return mongoTemplate.stream(query, Comment.class);
+    }
+
+    // Текстовый индекс groupId_content_text (MongoIndexConfig) требует точного условия на groupId.
+    // Строка запроса передается в $search как есть: Mongo сам разбирает слова, "фразы" и -исключения
+    @Override
+    public List<Comment> searchByText(Long groupId, String text, int limit) {
+        Query query = TextQuery.queryText(TextCriteria.forLanguage(MongoIndexConfig.TEXT_LANGUAGE).matching(text))
+                .sortByScore()
+                .addCriteria(Criteria.where("groupId").is(groupId))
+                .limit(limit);
+        return mongoTemplate.find(query, Comment.class);
+    }
+
+    private long toMillis(Object value) {
+        return value instanceof Date date ? date.getTime() : 0;
+    }
+}
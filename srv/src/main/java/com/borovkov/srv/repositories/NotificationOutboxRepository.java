@@ -0,0 +1,17 @@
+package com.borovkov.srv.repositories;
+
+import com.borovkov.srv.models.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // skip locked позволяет нескольким узлам srv разбирать outbox параллельно, не отправляя одно и то же
+    @Query(value = "select * from task_manager.notification_outbox order by id limit :limit for update skip locked", nativeQuery = true)
+    List<NotificationOutbox> lockBatch(@Param("limit") int limit);
+}
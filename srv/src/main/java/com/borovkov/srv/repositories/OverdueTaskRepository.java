@@ -0,0 +1,90 @@
+package com.borovkov.srv.repositories;
+
+import com.borovkov.srv.models.Task;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Запросы OverdueTaskSweeper. JDBC, а не JPA: UPDATE ... RETURNING и advisory lock не выражаются через репозитории Spring Data
+@Repository
+@RequiredArgsConstructor
+public class OverdueTaskRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public record Watermark(LocalDateTime deadline, Long id) {
+    }
+
+    public record OverdueTask(Long id, String title, Long assignedTo, LocalDateTime deadline, Long groupId, Task.STATUS previousStatus) {
+    }
+
+    // Блокировка до конца текущей транзакции. false - блокировку держит другой узел
+    public boolean tryLock(long key) {
+        Boolean locked = jdbcTemplate.queryForObject(
+                "select pg_try_advisory_xact_lock(:key)",
+                new MapSqlParameterSource("key", key),
+                Boolean.class);
+        return Boolean.TRUE.equals(locked);
+    }
+
+    public Optional<Watermark> findWatermark(String name) {
+        return jdbcTemplate.query(
+                "select last_deadline, last_id from task_manager.job_watermarks where name = :name",
+                new MapSqlParameterSource("name", name),
+                (rs, rowNum) -> new Watermark(rs.getObject("last_deadline", LocalDateTime.class), rs.getObject("last_id", Long.class))
+        ).stream().findFirst();
+    }
+
+    public void saveWatermark(String name, Watermark watermark) {
+        jdbcTemplate.update("""
+                        insert into task_manager.job_watermarks (name, last_deadline, last_id, updated_at)
+                        values (:name, :deadline, :id, current_timestamp)
+                        on conflict (name) do update
+                        set last_deadline = excluded.last_deadline, last_id = excluded.last_id, updated_at = excluded.updated_at
+                        """,
+                new MapSqlParameterSource()
+                        .addValue("name", name)
+                        .addValue("deadline", watermark.deadline())
+                        .addValue("id", watermark.id()));
+    }
+
+    // Перевод следующей пачки просроченных задач после водяного знака в OVERDUE одним запросом.
+    // Выборка идет по индексу tasks_open_deadline_idx, строки, заблокированные пользовательскими транзакциями, пропускаются
+    public List<OverdueTask> markOverdue(Watermark after, LocalDateTime now, int limit) {
+        return jdbcTemplate.query("""
+                        with due as (
+                            select id, status from task_manager.tasks
+                            where status in ('NEW', 'IN_PROGRESS')
+                              and deadline is not null
+                              and deadline <= :now
+                              and (deadline, id) > (:afterDeadline, :afterId)
+                            order by deadline, id
+                            limit :limit
+                            for update skip locked
+                        )
+                        update task_manager.tasks t
+                        set status = 'OVERDUE', updated_at = current_timestamp
+                        from due
+                        where t.id = due.id
+                        returning t.id, t.title, t.assigned_to, t.deadline, t.group_id, due.status as previous_status
+                        """,
+                new MapSqlParameterSource()
+                        .addValue("now", now)
+                        .addValue("afterDeadline", after.deadline())
+                        .addValue("afterId", after.id())
+                        .addValue("limit", limit),
+                (rs, rowNum) -> new OverdueTask(
+                        rs.getLong("id"),
+                        rs.getString("title"),
+                        rs.getObject("assigned_to", Long.class),
+                        rs.getObject("deadline", LocalDateTime.class),
+                        rs.getLong("group_id"),
+                        Task.STATUS.valueOf(rs.getString("previous_status"))
+                ));
+    }
+}
@@ -0,0 +1,66 @@
+package com.borovkov.srv.repositories;
+
+import com.borovkov.srv.models.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Выгрузка задач группы. Отдельный JdbcTemplate с fetch size: внутри транзакции драйвер PostgreSQL читает
+// результат серверным курсором порциями по fetch size, а не загружает все строки в память
+@Repository
+public class TaskExportRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public TaskExportRepository(DataSource dataSource, @Value("${tasks.export.fetch-size}") int fetchSize) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    // Все пользователи группы: администратор и созданные им пользователи
+    public Map<Long, String> findGroupUsernames(Long groupId) {
+        Map<Long, String> usernames = new HashMap<>();
+        jdbcTemplate.query(
+                "select id, username from task_manager.users where id = :groupId or created_by = :groupId",
+                new MapSqlParameterSource("groupId", groupId),
+                rs -> {
+                    usernames.put(rs.getLong("id"), rs.getString("username"));
+                });
+        return usernames;
+    }
+
+    // Задачи группы в порядке id по индексу tasks_group_id_id_idx. Должно вызываться внутри транзакции:
+    // вне ее соединение в autocommit и драйвер игнорирует fetch size
+    public void streamByGroupId(Long groupId, Consumer<Task> consumer) {
+        jdbcTemplate.query("""
+                        select id, title, description, status, assigned_to, created_by, created_at, updated_at, deadline, group_id
+                        from task_manager.tasks
+                        where group_id = :groupId
+                        order by id
+                        """,
+                new MapSqlParameterSource("groupId", groupId),
+                rs -> {
+                    Task task = new Task();
+                    task.setId(rs.getLong("id"));
+                    task.setTitle(rs.getString("title"));
+                    task.setDescription(rs.getString("description"));
+                    task.setStatus(Task.STATUS.valueOf(rs.getString("status")));
+                    task.setAssignedTo(rs.getObject("assigned_to", Long.class));
+                    task.setCreatedBy(rs.getObject("created_by", Long.class));
+                    task.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+                    task.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+                    task.setDeadline(rs.getObject("deadline", LocalDateTime.class));
+                    task.setGroupId(rs.getLong("group_id"));
+                    consumer.accept(task);
+                });
+    }
+}
@@ -1,12 +1,17 @@
 package com.borovkov.srv.repositories;
 
 import com.borovkov.srv.models.Task;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +19,56 @@ public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificat
 
     @Query("select s from Task s where s.id=:id")
     Optional<Task> findById(@Param("id") Long id);
+
+    // Блокировка строки до конца транзакции: проверка If-Match, приращения статистики и запись
+    // считаются от той же версии задачи, которая будет перезаписана
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Task s where s.id=:id")
+    Optional<Task> findByIdForUpdate(@Param("id") Long id);
+
+    // Строки блокируются по возрастанию id: параллельные пакетные обновления берут блокировки в одном порядке
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Task s where s.id in :ids order by s.id")
+    List<Task> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Блокировка удаляемых строк без загрузки сущностей: вычитаемые из статистики значения не меняются до DELETE
+    @Query(value = "select id from task_manager.tasks where id in (:ids) order by id for update", nativeQuery = true)
+    List<Long> lockByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Версия задачи для условных запросов: без загрузки сущности
+    @Query("select s.groupId as groupId, s.updatedAt as updatedAt from Task s where s.id=:id")
+    Optional<TaskVersion> findVersionById(@Param("id") Long id);
+
+    // Проверка принадлежности пачки задач группе одним запросом, без загрузки самих задач
+    @Query("select s.id as id, s.groupId as groupId from Task s where s.id in :ids")
+    List<TaskGroup> findGroupIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Полнотекстовый поиск в пределах группы по индексу tasks_group_id_search_vector_idx (V6__Tasks_full_text_search.sql).
+    // Возвращает только id и релевантность, сами задачи догружаются по id
+    @Query(value = """
+            select t.id as id, ts_rank_cd(t.search_vector, q)::float8 as rank
+            from task_manager.tasks t, websearch_to_tsquery('russian', :text) q
+            where t.group_id = :groupId and t.search_vector @@ q
+            order by rank desc, t.id desc
+            limit :limit
+            """, nativeQuery = true)
+    List<TaskRank> searchByText(@Param("groupId") Long groupId, @Param("text") String text, @Param("limit") int limit);
+
+    interface TaskVersion {
+        Long getGroupId();
+
+        LocalDateTime getUpdatedAt();
+    }
+
+    interface TaskGroup {
+        Long getId();
+
+        Long getGroupId();
+    }
+
+    interface TaskRank {
+        Long getId();
+
+        Double getRank();
+    }
 }
@@ -0,0 +1,126 @@
+package com.borovkov.srv.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Счетчики task_manager.task_stats (V7__Task_stats.sql). JDBC: приращения через insert ... on conflict пачкой
+// и пересчет в одном запросе не выражаются через репозитории Spring Data
+@Repository
+@RequiredArgsConstructor
+public class TaskStatsRepository {
+
+    // Разложение задач, отобранных условием %s, по счетчикам. Должно совпадать с TaskStatsService.Delta
+    private static final String COUNTERS_SQL = """
+            with t as (
+                select group_id, status, assigned_to, deadline from task_manager.tasks where %s
+            )
+            select group_id, dimension, bucket, count(*) as task_count
+            from (
+                select group_id, 'STATUS' as dimension, status as bucket from t
+                union all
+                select group_id, 'ASSIGNEE', assigned_to::varchar from t
+                union all
+                select group_id, 'DEADLINE', coalesce(to_char(deadline, 'YYYY-MM-DD'), 'NONE') from t where status <> 'COMPLETED'
+            ) counters
+            group by group_id, dimension, bucket
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public enum Dimension {
+        STATUS, ASSIGNEE, DEADLINE
+    }
+
+    public record Counter(Long groupId, Dimension dimension, String bucket) {
+    }
+
+    public record Stat(Dimension dimension, String bucket, long count) {
+    }
+
+    // Приращения одним JDBC-батчем. Порядок строк задает вызывающий: одинаковый порядок исключает взаимные блокировки
+    public void add(Map<Counter, Long> deltas) {
+        SqlParameterSource[] batch = deltas.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("groupId", entry.getKey().groupId())
+                        .addValue("dimension", entry.getKey().dimension().name())
+                        .addValue("bucket", entry.getKey().bucket())
+                        .addValue("delta", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                insert into task_manager.task_stats (group_id, dimension, bucket, task_count)
+                values (:groupId, :dimension, :bucket, :delta)
+                on conflict (group_id, dimension, bucket) do update
+                set task_count = task_manager.task_stats.task_count + excluded.task_count
+                """, batch);
+    }
+
+    // Вычитание счетчиков задач, которые будут удалены. Вызывается до удаления, пока строки задач еще есть
+    public void subtractTasks(Collection<Long> taskIds) {
+        jdbcTemplate.update("""
+                        insert into task_manager.task_stats (group_id, dimension, bucket, task_count)
+                        select group_id, dimension, bucket, -task_count from (%s) deleted
+                        order by group_id, dimension, bucket
+                        on conflict (group_id, dimension, bucket) do update
+                        set task_count = task_manager.task_stats.task_count + excluded.task_count
+                        """.formatted(COUNTERS_SQL.formatted("id in (:ids)")),
+                new MapSqlParameterSource("ids", taskIds));
+    }
+
+    // Чтение по префиксу первичного ключа: число строк зависит от числа исполнителей и дней сроков, а не от числа задач
+    public List<Stat> findByGroupId(Long groupId) {
+        return jdbcTemplate.query("""
+                        select dimension, bucket, task_count from task_manager.task_stats
+                        where group_id = :groupId and task_count <> 0
+                        """,
+                new MapSqlParameterSource("groupId", groupId),
+                (rs, rowNum) -> new Stat(
+                        Dimension.valueOf(rs.getString("dimension")),
+                        rs.getString("bucket"),
+                        rs.getLong("task_count")
+                ));
+    }
+
+    // Группы - пользователи без created_by (см. UserService.getGroupId) и группы, по которым уже есть счетчики
+    public List<Long> findGroupIds() {
+        return jdbcTemplate.queryForList("""
+                        select id from task_manager.users where created_by is null
+                        union
+                        select distinct group_id from task_manager.task_stats
+                        """,
+                new MapSqlParameterSource(),
+                Long.class);
+    }
+
+    // Приведение счетчиков группы к фактическим значениям из tasks. Возвращает число исправленных строк
+    public int reconcile(Long groupId) {
+        Integer corrected = jdbcTemplate.queryForObject("""
+                        with actual as (%s),
+                        removed as (
+                            delete from task_manager.task_stats s
+                            where s.group_id = :groupId
+                              and not exists (select 1 from actual a where a.dimension = s.dimension and a.bucket = s.bucket)
+                            returning 1
+                        ),
+                        upserted as (
+                            insert into task_manager.task_stats (group_id, dimension, bucket, task_count)
+                            select group_id, dimension, bucket, task_count from actual
+                            on conflict (group_id, dimension, bucket) do update
+                            set task_count = excluded.task_count
+                            where task_manager.task_stats.task_count <> excluded.task_count
+                            returning 1
+                        )
+                        select (select count(*) from removed) + (select count(*) from upserted)
+                        """.formatted(COUNTERS_SQL.formatted("group_id = :groupId")),
+                new MapSqlParameterSource("groupId", groupId),
+                Integer.class);
+        return corrected == null ? 0 : corrected;
+    }
+}
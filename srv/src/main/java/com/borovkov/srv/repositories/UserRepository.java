@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +21,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("select s from User s where s.createdBy=:adminId")
     List<User> findUsersByAdminId(@Param("adminId") Long adminId);
+
+    @Query("select s.id from User s where s.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Администратор группы и созданные им пользователи
+    @Query("select s.id from User s where s.id = :groupId or s.createdBy = :groupId")
+    List<Long> findGroupUserIds(@Param("groupId") Long groupId);
 }
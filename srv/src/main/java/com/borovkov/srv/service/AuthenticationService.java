@@ -6,7 +6,6 @@ import com.borovkov.srv.models.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,7 +18,6 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
 
 
     // Регистрация пользователя
@@ -52,7 +50,7 @@ public class AuthenticationService {
                 request.getPassword()
         ));
 
-        var user = userDetailsService.loadUserByUsername(request.getUsername());
+        var user = userService.getUserByUsername(request.getUsername());
 
         var jwt = jwtService.generatedToken(user);
         return new JwtAuthenticationResponse(jwt);
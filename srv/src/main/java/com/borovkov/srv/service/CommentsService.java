@@ -1,25 +1,32 @@
 package com.borovkov.srv.service;
 
 import com.borovkov.srv.dto.response.CommentResponseDto;
+import com.borovkov.srv.dto.response.CursorPageDto;
 import com.borovkov.srv.mapper.CommonMapper;
 import com.borovkov.srv.models.Comment;
 import com.borovkov.srv.models.NotificationType;
 import com.borovkov.srv.models.Task;
 import com.borovkov.srv.models.User;
-import com.borovkov.srv.producer.RabbitMQStatusProducer;
 import com.borovkov.srv.repositories.CommentsRepository;
+import com.borovkov.srv.repositories.CommentsRepositoryCustom;
+import com.borovkov.srv.utils.BulkIdsUtils;
+import com.borovkov.srv.utils.CursorUtils;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.Principal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,14 +36,63 @@ public class CommentsService {
     private final UserService userService;
     private final TaskService taskService;
     private final CommonMapper commonMapper;
-    private final RabbitMQStatusProducer rabbitMQStatusProducer;
     private final NotificationService notificationService;
+    private final UserResolver userResolver;
 
+    @Value("${comments.cursor.max-size}")
+    private int cursorMaxSize;
 
     public Page<Comment> getCommentsByTaskIdAndGroupId(Long taskId, Long groupId, Pageable pageable) {
         return repository.findByTaskIdAndGroupId(taskId, groupId, pageable);
     }
 
+    public CommentsRepositoryCustom.CommentsVersion getCommentsVersion(Long taskId, Long groupId) {
+        return repository.findVersionByTaskIdAndGroupId(taskId, groupId);
+    }
+
+    // Лента комментариев задачи с keyset-пагинацией по (createdAt, id), без общего количества
+    public CursorPageDto<CommentResponseDto> getCommentsByCursor(Long taskId, Long groupId, String cursor, int size, Sort.Direction direction) {
+        if (size < 1 || size > cursorMaxSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and %d".formatted(cursorMaxSize));
+        }
+
+        Sort.Order order = new Sort.Order(direction, "createdAt");
+
+        LocalDateTime createdAfter = null;
+        String idAfter = null;
+        if (cursor != null) {
+            CursorUtils.Cursor decoded = CursorUtils.decode(cursor, order);
+            createdAfter = (LocalDateTime) CursorUtils.parseValue(Comment.class, "createdAt", decoded.value());
+            idAfter = decoded.id();
+        }
+
+        List<Comment> comments = repository.findByTaskIdAndGroupIdAfter(taskId, groupId, createdAfter, idAfter, direction, size + 1);
+
+        boolean hasNext = comments.size() > size;
+        if (hasNext) {
+            comments = comments.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Comment last = comments.get(comments.size() - 1);
+            nextCursor = CursorUtils.encode(new CursorUtils.Cursor(
+                    "createdAt",
+                    direction,
+                    CursorUtils.fieldValue(last, "createdAt"),
+                    last.getId()
+            ));
+        }
+
+        List<CommentResponseDto> content = comments.stream()
+                .map(commonMapper::toCommentResponseDto)
+                .toList();
+        Map<Long, String> usernames = userResolver.getUsernames(content.stream().map(CommentResponseDto::getUserId).toList());
+        content.forEach(dto -> dto.setUsername(usernames.get(dto.getUserId())));
+
+        return new CursorPageDto<>(content, nextCursor, hasNext, null);
+    }
+
     public Comment getCommentById(String commentId) {
         return repository.findById(commentId)
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Comment with id={ %s } not found", commentId)));
@@ -50,25 +106,23 @@ public class CommentsService {
 
     @Transactional
     public Comment create(Long taskId, Comment comment, Principal principal) {
-        checkUserAndTaskGroupMatch(taskId, principal);
-
-        User user = userService.getUserByUsername(principal.getName());
+        Long groupId = checkUserAndTaskGroupMatch(taskId, principal);
 
         comment.setId(null);
         comment.setTaskId(taskId);
-        comment.setUserId(user.getId());
+        comment.setUserId(userService.getUserId(principal));
         comment.setCreatedAt(LocalDateTime.now());
         comment.setIsEdited(false);
         comment.setModifiedAt(null);
-        comment.setGroupId(userService.getGroupId(user));
+        comment.setGroupId(groupId);
 
         Comment savedComment = repository.save(comment);
 
         Task task = getTaskByComment(comment);
-        String message = String.format("Задачу '%s' прокомментировал пользователь '%s'", task.getTitle(), user.getUsername());
+        String message = String.format("Задачу '%s' прокомментировал пользователь '%s'", task.getTitle(), principal.getName());
         String notificationMessage = notificationService.generationNotificationMessage(task, message, NotificationType.TASK_COMMENTED);
 
-        notificationService.registerRabbitMQNotification(rabbitMQStatusProducer, notificationMessage);
+        notificationService.saveToOutbox(notificationMessage);
 
         return savedComment;
     }
@@ -112,25 +166,15 @@ public class CommentsService {
 
         checkAdminGroupId(admin.getId(), ids);
 
-        List<String> deletedIds = new ArrayList<>();
-
-        for (String id : ids) {
-            if (repository.findById(id).isPresent()) {
-                repository.deleteById(id);
-                deletedIds.add(id);
-            } else {
-                throw new EntityNotFoundException(String.format("Comment with id={ %s } not found", id));
-            }
-        }
+        // Один deleteMany по всем проверенным id
+        repository.deleteByIdIn(ids);
 
-        return deletedIds;
+        return List.copyOf(ids);
     }
 
     private Long checkUserAndTaskGroupMatch(Long taskId, Principal principal) {
         Task task = taskService.getTaskById(taskId);
-        User user = userService.getUserByUsername(principal.getName());
-
-        Long groupId = user.getCreatedBy() != null ? user.getCreatedBy() : user.getId();
+        Long groupId = userService.getGroupId(principal);
 
         if (!task.getGroupId().equals(groupId)) {
             throw new AccessDeniedException("You are not allowed to access this task as it does not belong to your group");
@@ -158,21 +202,20 @@ public class CommentsService {
         return dto;
     }
 
+    // Группы всех комментариев загружаются одним запросом
     private void checkAdminGroupId(Long adminId, List<String> commentIds) {
-        commentIds.forEach(commentId -> {
-            Comment comment = repository.findById(commentId)
-                    .orElseThrow(() -> new EntityNotFoundException(String.format("Comment with id={ %s } not found", commentId)));
-            if (!adminId.equals(comment.getGroupId())) {
-                throw new AccessDeniedException("You are not allowed to delete comment from another group");
-            }
-        });
+        Map<String, Comment> comments = repository.findGroupIdsByIdIn(commentIds).stream()
+                .collect(Collectors.toMap(Comment::getId, Function.identity()));
+
+        BulkIdsUtils.checkInRequestOrder(commentIds, comments, comment -> adminId.equals(comment.getGroupId()),
+                commentId -> new EntityNotFoundException(String.format("Comment with id={ %s } not found", commentId)),
+                () -> new AccessDeniedException("You are not allowed to delete comment from another group"));
     }
 
     public void initCommentResponseDto(Page<CommentResponseDto> dtoPage) {
-        dtoPage.forEach(dto -> {
-            User user = userService.getUserById(dto.getUserId());
-            dto.setUsername(user.getUsername());
-        });
+        List<Long> userIds = dtoPage.map(CommentResponseDto::getUserId).getContent();
+        Map<Long, String> usernames = userResolver.getUsernames(userIds);
+        dtoPage.forEach(dto -> dto.setUsername(usernames.get(dto.getUserId())));
     }
 
     public Task getTaskByComment(Comment comment) {
@@ -0,0 +1,233 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.dto.response.CommentResponseDto;
+import com.borovkov.srv.dto.response.ExportRecordDto;
+import com.borovkov.srv.dto.response.TaskResponseDto;
+import com.borovkov.srv.mapper.CommonMapper;
+import com.borovkov.srv.models.Comment;
+import com.borovkov.srv.repositories.CommentsRepository;
+import com.borovkov.srv.repositories.TaskExportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Потоковая выгрузка задач и комментариев группы. Задачи читаются серверным курсором PostgreSQL,
+// комментарии - курсором MongoDB, каждая запись сразу пишется в ответ: память не зависит от размера группы.
+// Сначала идут все задачи в порядке id, затем все комментарии группы
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String[] CSV_HEADER = {
+            "type", "id", "task_id", "title", "description", "status", "assigned_to", "created_by",
+            "username", "content", "created_at", "updated_at", "deadline", "is_edited", "modified_at"
+    };
+
+    private final TaskExportRepository taskExportRepository;
+    private final CommentsRepository commentsRepository;
+    private final CommonMapper commonMapper;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${tasks.export.fetch-size}")
+    private int fetchSize;
+
+    @Value("${tasks.export.timeout}")
+    private Duration timeout;
+
+    // Отдельная транзакция только для чтения: курсор не должен держать соединение и снимок дольше timeout
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        readOnlyTransactionTemplate.setTimeout(Math.toIntExact(timeout.toSeconds()));
+    }
+
+    @Getter
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    public void export(Long groupId, Format format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+
+        try (RecordWriter writer = format == Format.CSV ? new CsvRecordWriter(target) : new NdjsonRecordWriter(target)) {
+            // Пользователей группы немного, имена берутся из одной выборки, а не по каждой записи
+            Map<Long, String> usernames = taskExportRepository.findGroupUsernames(groupId);
+
+            // Курсор PostgreSQL работает только внутри транзакции. Транзакция держит соединение из пула и снимок
+            // на все время выгрузки задач, включая ожидание медленного клиента, поэтому выгрузка задач ограничена timeout:
+            // таймаут транзакции задает таймаут запроса, а срок проверяется и между записями
+            long deadline = System.nanoTime() + timeout.toNanos();
+            readOnlyTransactionTemplate.executeWithoutResult(status -> taskExportRepository.streamByGroupId(groupId, task -> {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new TransactionTimedOutException("Export of group %d exceeded %s".formatted(groupId, timeout));
+                }
+                TaskResponseDto dto = commonMapper.toTaskResponseDto(task);
+                dto.setUsernameAssignedTo(usernames.get(task.getAssignedTo()));
+                dto.setUsernameCreatedBy(usernames.get(task.getCreatedBy()));
+                writer.task(dto);
+            }));
+
+            try (Stream<Comment> comments = commentsRepository.streamByGroupId(groupId, fetchSize)) {
+                comments.forEach(comment -> {
+                    CommentResponseDto dto = commonMapper.toCommentResponseDto(comment);
+                    dto.setUsername(usernames.get(comment.getUserId()));
+                    writer.comment(dto);
+                });
+            }
+        } catch (UncheckedIOException e) {
+            // Обычно это разрыв соединения клиентом
+            throw e.getCause();
+        }
+    }
+
+    // Ошибки записи в ответ пробрасываются как UncheckedIOException: запись идет из колбэков курсоров
+    private interface RecordWriter extends AutoCloseable {
+
+        void task(TaskResponseDto task);
+
+        void comment(CommentResponseDto comment);
+
+        // Дописывает буферы и завершает gzip, но не закрывает поток ответа - его закрывает контейнер
+        @Override
+        void close() throws IOException;
+    }
+
+    private class NdjsonRecordWriter implements RecordWriter {
+
+        private final OutputStream target;
+        private final JsonGenerator generator;
+
+        // Без сброса буфера после каждой записи, иначе каждая строка уходит клиенту отдельным чанком
+        private final ObjectWriter recordWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        NdjsonRecordWriter(OutputStream target) throws IOException {
+            this.target = target;
+            this.generator = objectMapper.getFactory().createGenerator(target)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void task(TaskResponseDto task) {
+            write(new ExportRecordDto(ExportRecordDto.Type.TASK, task, null));
+        }
+
+        @Override
+        public void comment(CommentResponseDto comment) {
+            write(new ExportRecordDto(ExportRecordDto.Type.COMMENT, null, comment));
+        }
+
+        private void write(ExportRecordDto record) {
+            try {
+                recordWriter.writeValue(generator, record);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+            finish(target);
+        }
+    }
+
+    private static class CsvRecordWriter implements RecordWriter {
+
+        private final OutputStream target;
+        private final Writer writer;
+
+        CsvRecordWriter(OutputStream target) {
+            this.target = target;
+            this.writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+            writeRow((Object[]) CSV_HEADER);
+        }
+
+        @Override
+        public void task(TaskResponseDto task) {
+            writeRow("task", task.getId(), null, task.getTitle(), task.getDescription(), task.getStatus(),
+                    task.getUsernameAssignedTo(), task.getUsernameCreatedBy(), null, null,
+                    task.getCreatedAt(), task.getUpdatedAt(), task.getDeadline(), null, null);
+        }
+
+        @Override
+        public void comment(CommentResponseDto comment) {
+            writeRow("comment", comment.getId(), comment.getTaskId(), null, null, null,
+                    null, null, comment.getUsername(), comment.getContent(),
+                    comment.getCreatedAt(), null, null, comment.getIsEdited(), comment.getModifiedAt());
+        }
+
+        private void writeRow(Object... values) {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(escape(values[i]));
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // RFC 4180: значение с запятой, кавычкой или переводом строки берется в кавычки, кавычки удваиваются
+        private String escape(Object value) {
+            String text = Objects.toString(value, "");
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+            finish(target);
+        }
+    }
+
+    private static void finish(OutputStream target) throws IOException {
+        if (target instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+        target.flush();
+    }
+}
@@ -1,56 +1,98 @@
 package com.borovkov.srv.service;
 
 import com.borovkov.srv.models.User;
+import com.borovkov.srv.models.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    public static final Duration TOKEN_TTL = Duration.ofMillis(100000 * 60 * 24);
+
+    // Время выпуска в миллисекундах: стандартный iat хранит только секунды
+    private static final String ISSUED_AT_MS_CLAIM = "iatMs";
+
     @Value("${spring.security.jwt.secret}")
     private String jwtSigningKey;
 
+    @Value("${spring.security.jwt.claims-cache.max-size}")
+    private long claimsCacheMaxSize;
+
+    @Value("${spring.security.jwt.claims-cache.ttl}")
+    private Duration claimsCacheTtl;
+
+    private final MeterRegistry meterRegistry;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    // Проверенные claims по хэшу токена. Запись живет не дольше TTL кэша и не дольше самого токена
+    private Cache<String, Claims> claimsCache;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSigningKey));
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwtClaims");
+    }
+
     // Генерация токена
     public String generatedToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         if (userDetails instanceof User customUserDetails) {
             claims.put("id", customUserDetails.getId());
             claims.put("username", customUserDetails.getUsername());
-            claims.put("role", customUserDetails.getUsername());
+            claims.put("role", customUserDetails.getRole().name());
+            claims.put("groupId", customUserDetails.getCreatedBy() != null ? customUserDetails.getCreatedBy() : customUserDetails.getId());
         }
         return generateToken(claims, userDetails);
     }
 
     // Генерация токена
     private String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .claims(extraClaims)
+                .claim(ISSUED_AT_MS_CLAIM, now)
                 .subject(userDetails.getUsername())
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + 100000 * 60 * 24))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + TOKEN_TTL.toMillis()))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    // Получение ключа для подписи токена
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSigningKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     // Извлечение имени пользователя из токена
     public String extractUserName(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -67,12 +109,43 @@ public class JwtService {
         return claimsResolvers.apply(claims);
     }
 
-    // Извлечение всех данных из токена
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith((SecretKey) getSigningKey()).build()
-                .parseSignedClaims(token)
-                .getPayload();
+    // Извлечение всех данных из токена. Подпись каждого токена проверяется один раз за время жизни записи в кэше
+    public Claims extractAllClaims(String token) {
+        String tokenHash = hash(token);
+        Claims claims = claimsCache.getIfPresent(tokenHash);
+        if (claims == null) {
+            claims = jwtParser.parseSignedClaims(token).getPayload();
+            claimsCache.put(tokenHash, claims);
+        }
+        return claims;
+    }
+
+    // Время выпуска токена в миллисекундах. Для токенов без iatMs - iat с точностью до секунды, null - время неизвестно
+    public Long extractIssuedAtMillis(Claims claims) {
+        Number issuedAtMs = claims.get(ISSUED_AT_MS_CLAIM, Number.class);
+        if (issuedAtMs != null) {
+            return issuedAtMs.longValue();
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() : null;
+    }
+
+    // Построение пользователя из claims без обращения к БД.
+    // Возвращает null для токенов старого формата, в которых нет нужных claims
+    public UserPrincipal toPrincipal(Claims claims) {
+        Number id = claims.get("id", Number.class);
+        Number groupId = claims.get("groupId", Number.class);
+        String role = claims.get("role", String.class);
+
+        if (id == null || groupId == null || role == null || claims.getSubject() == null) {
+            return null;
+        }
+
+        try {
+            return new UserPrincipal(id.longValue(), claims.getSubject(), User.Role.valueOf(role), groupId.longValue());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     // Проверка токена на валидность
@@ -86,4 +159,36 @@ public class JwtService {
         return extractExpiration(token).before(new Date());
     }
 
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long ttl = claimsCacheTtl.toNanos();
+            Date expiration = claims.getExpiration();
+            if (expiration != null) {
+                long untilExpiration = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+                ttl = Math.min(ttl, Math.max(untilExpiration, 0));
+            }
+            return ttl;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.models.NotificationOutbox;
+import com.borovkov.srv.producer.RabbitMQStatusProducer;
+import com.borovkov.srv.repositories.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Фоновая отправка уведомлений из outbox в RabbitMQ пачками.
+// Записи удаляются только после подтверждения брокером, поэтому доставка - at-least-once
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxRelay {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final RabbitMQStatusProducer rabbitMQStatusProducer;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification.outbox.batch-size}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms}")
+    public void relay() {
+        int published;
+        do {
+            published = transactionTemplate.execute(status -> publishBatch());
+        } while (published == batchSize);
+    }
+
+    private int publishBatch() {
+        List<NotificationOutbox> batch = outboxRepository.lockBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        rabbitMQStatusProducer.sendNotifications(batch);
+
+        outboxRepository.deleteAllByIdInBatch(batch.stream()
+                .map(NotificationOutbox::getId)
+                .toList());
+
+        return batch.size();
+    }
+}
@@ -1,38 +1,81 @@
 package com.borovkov.srv.service;
 
 import com.borovkov.srv.dto.notifications.NotificationDTO;
+import com.borovkov.srv.dto.notifications.NotificationPageDto;
+import com.borovkov.srv.exception.ServiceUnavailableException;
+import com.borovkov.srv.models.NotificationOutbox;
 import com.borovkov.srv.models.NotificationType;
 import com.borovkov.srv.models.Task;
-import com.borovkov.srv.producer.RabbitMQStatusProducer;
+import com.borovkov.srv.repositories.NotificationOutboxRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
 
     private final ObjectMapper objectMapper;
     private final RestTemplate restTemplate;
+    private final NotificationOutboxRepository outboxRepository;
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String DEGRADED_HEADER = "X-Notifications-Degraded";
+
+    // Имя экземпляров circuit breaker и bulkhead (resilience4j в application.yml)
+    private static final String MESSAGE_BROKERS = "messageBrokers";
 
     @Value("${message-processor.url}")
     private String messageProcessorUrl;
 
+    @Value("${message-processor.fallback-cache.max-size}")
+    private long fallbackCacheMaxSize;
+
+    @Value("${message-processor.fallback-cache.ttl}")
+    private Duration fallbackCacheTtl;
+
+    // Последняя успешно полученная первая страница уведомлений пользователя для каждого размера страницы -
+    // для деградированного ответа
+    private Cache<PageKey, NotificationPageDto> lastPageCache;
+
+    private record PageKey(Long userId, int size) {
+    }
+
     public String generationNotificationMessage(Task task, String message, NotificationType type) {
+        return generationNotificationMessage(task.getAssignedTo(), message, type);
+    }
+
+    public String generationNotificationMessage(Long userId, String message, NotificationType type) {
 
         NotificationDTO dto = NotificationDTO.builder()
-                .userId(task.getAssignedTo())
+                .userId(userId)
                 .message(message)
                 .isRead(false)
                 .createdAt(LocalDateTime.now())
@@ -46,24 +89,137 @@ public class NotificationService {
         }
     }
 
-    public List<NotificationDTO> getNotification(Long userId) {
-        String url = messageProcessorUrl + "/api/notifications/" + userId;
+    // Одно уведомление на исполнителя, в порядке первого появления: про единственную задачу - singleMessage,
+    // про несколько - manyFormat с их количеством. Задачи без исполнителя пропускаются
+    public <T> List<String> groupedMessages(List<T> tasks,
+                                            Function<T, Long> assignee,
+                                            Function<T, String> singleMessage,
+                                            String manyFormat,
+                                            NotificationType type) {
+        Map<Long, List<T>> byAssignee = new LinkedHashMap<>();
+        for (T task : tasks) {
+            Long userId = assignee.apply(task);
+            if (userId != null) {
+                byAssignee.computeIfAbsent(userId, id -> new ArrayList<>()).add(task);
+            }
+        }
+
+        List<String> messages = new ArrayList<>(byAssignee.size());
+        byAssignee.forEach((userId, userTasks) -> messages.add(generationNotificationMessage(
+                userId,
+                userTasks.size() == 1 ? singleMessage.apply(userTasks.get(0)) : String.format(manyFormat, userTasks.size()),
+                type)));
+        return messages;
+    }
+
+    @PostConstruct
+    public void init() {
+        lastPageCache = Caffeine.newBuilder()
+                .maximumSize(fallbackCacheMaxSize)
+                .expireAfterWrite(fallbackCacheTtl)
+                .build();
+    }
+
+    @Bulkhead(name = MESSAGE_BROKERS)
+    @CircuitBreaker(name = MESSAGE_BROKERS, fallbackMethod = "getNotificationFallback")
+    public NotificationPageDto getNotification(Long userId, Long cursor, Long since, int size) {
+        String url = UriComponentsBuilder.fromUriString(messageProcessorUrl)
+                .path("/api/notifications/{userId}")
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .queryParamIfPresent("since", Optional.ofNullable(since))
+                .queryParam("size", size)
+                .buildAndExpand(userId)
+                .toUriString();
+
         ResponseEntity<NotificationDTO[]> response = restTemplate.getForEntity(url, NotificationDTO[].class);
-        return Arrays.asList(response.getBody());
+        List<NotificationDTO> notifications = response.getBody() != null ? Arrays.asList(response.getBody()) : List.of();
+        NotificationPageDto page = new NotificationPageDto(notifications, response.getHeaders().getFirst(NEXT_CURSOR_HEADER), false);
+
+        if (cursor == null && since == null) {
+            lastPageCache.put(new PageKey(userId, size), page);
+        }
+        return page;
     }
 
+    // Деградированный ответ: последняя полученная первая страница пользователя или пустой список
+    private NotificationPageDto getNotificationFallback(Long userId, Long cursor, Long since, int size, Throwable e) {
+        rethrowClientError(e);
+        log.warn("message-brokers is unavailable, returning degraded notifications for user {}: {}", userId, e.toString());
+
+        NotificationPageDto cached = cursor == null && since == null ? lastPageCache.getIfPresent(new PageKey(userId, size)) : null;
+        if (cached == null) {
+            return new NotificationPageDto(List.of(), null, true);
+        }
+        return new NotificationPageDto(cached.getContent(), cached.getNextCursor(), true);
+    }
+
+    @Bulkhead(name = MESSAGE_BROKERS)
+    @CircuitBreaker(name = MESSAGE_BROKERS, fallbackMethod = "markNotificationAsReadFallback")
     public void markNotificationAsRead(Long notificationId, Long userId) {
         String url = messageProcessorUrl + "/api/notifications/" + notificationId + "/read?userId=" + userId;
         restTemplate.put(url, HttpEntity.EMPTY);
     }
 
-    public void registerRabbitMQNotification(RabbitMQStatusProducer producer, String message) {
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                producer.sendNotification(message);
-            }
-        });
+    private void markNotificationAsReadFallback(Long notificationId, Long userId, Throwable e) {
+        throw unavailable(e);
+    }
+
+    // Прочтение пачки уведомлений одним запросом к message-brokers. Пустой список - прочтение всех непрочитанных
+    @Bulkhead(name = MESSAGE_BROKERS)
+    @CircuitBreaker(name = MESSAGE_BROKERS, fallbackMethod = "markNotificationsAsReadFallback")
+    public int markNotificationsAsRead(List<Long> notificationIds, Long userId) {
+        String url = UriComponentsBuilder.fromUriString(messageProcessorUrl)
+                .path("/api/notifications/read")
+                .queryParam("userId", userId)
+                .toUriString();
+
+        ResponseEntity<Integer> response = restTemplate.exchange(
+                url, HttpMethod.PUT, new HttpEntity<>(notificationIds == null ? List.of() : notificationIds), Integer.class);
+        return response.getBody() != null ? response.getBody() : 0;
+    }
+
+    private int markNotificationsAsReadFallback(List<Long> notificationIds, Long userId, Throwable e) {
+        throw unavailable(e);
+    }
+
+    @Bulkhead(name = MESSAGE_BROKERS)
+    @CircuitBreaker(name = MESSAGE_BROKERS, fallbackMethod = "getUnreadCountFallback")
+    public long getUnreadCount(Long userId) {
+        String url = messageProcessorUrl + "/api/notifications/" + userId + "/unread-count";
+        Long count = restTemplate.getForObject(url, Long.class);
+        return count != null ? count : 0L;
+    }
+
+    // Точного количества без message-brokers не получить (закэшированная первая страница ограничена размером страницы),
+    // поэтому вместо заведомо неверного значения - 503
+    private long getUnreadCountFallback(Long userId, Throwable e) {
+        throw unavailable(e);
+    }
+
+    // Ошибки 4xx - это ответ message-brokers по существу (например, 404), их нельзя подменять деградированным ответом
+    private void rethrowClientError(Throwable e) {
+        if (e instanceof HttpClientErrorException clientError) {
+            throw clientError;
+        }
+    }
+
+    private RuntimeException unavailable(Throwable e) {
+        rethrowClientError(e);
+        log.warn("message-brokers is unavailable: {}", e.toString());
+        return new ServiceUnavailableException("Notification service is temporarily unavailable", e);
+    }
+
+    // Уведомление сохраняется в outbox в текущей транзакции и отправляется в RabbitMQ после коммита
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saveToOutbox(String message) {
+        outboxRepository.save(new NotificationOutbox(message));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saveAllToOutbox(List<String> messages) {
+        outboxRepository.saveAll(messages.stream()
+                .map(NotificationOutbox::new)
+                .toList());
     }
 
 }
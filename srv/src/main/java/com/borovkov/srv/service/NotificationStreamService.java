@@ -0,0 +1,246 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.dto.notifications.NotificationDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Push-канал уведомлений (Server-Sent Events). SseEmitter работает поверх асинхронного сервлета:
+// пока соединение простаивает, поток Tomcat не занят.
+// Каждый экземпляр srv получает все уведомления, поэтому клиент может подключиться к любому из них.
+//
+// id события - это id записи outbox в srv, а не id уведомления в message-brokers: с курсорами и параметром since
+// GET /notification/list он не сравним. id outbox выдаются не в порядке коммита, поэтому повтор после Last-Event-ID
+// идет по порядку получения событий этим экземпляром, а не по сравнению id. Если события с таким id в буфере нет
+// (вытеснено, истек replayTtl или клиент переподключился к другому экземпляру), клиенту отправляется событие resync:
+// пропущенное нужно перечитать с первой страницы GET /notification/list
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationStreamService {
+
+    public static final String EVENT_NAME = "notification";
+    public static final String RESYNC_EVENT_NAME = "resync";
+
+    @Value("${notification.stream.timeout}")
+    private Duration timeout;
+
+    @Value("${notification.stream.replay-buffer-size}")
+    private int replayBufferSize;
+
+    @Value("${notification.stream.replay-ttl}")
+    private Duration replayTtl;
+
+    @Value("${notification.stream.send-queue-size}")
+    private int sendQueueSize;
+
+    private final MeterRegistry meterRegistry;
+    private final SimpleAsyncTaskExecutorBuilder executorBuilder;
+
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // Последние события пользователя для возобновления потока по Last-Event-ID.
+    // Под блокировкой пользователя выполняются только запись в буфер и постановка событий в очереди клиентов,
+    // запись в сокет идет вне ее
+    private Cache<Long, ReplayBuffer> replayBuffers;
+
+    // Отправка клиентам вне потока RabbitMQ-листенера: медленный клиент задерживает только свою очередь.
+    // Поток создается на время разбора очереди клиента, с spring.threads.virtual.enabled - виртуальный
+    private TaskExecutor sendExecutor;
+
+    @PostConstruct
+    public void init() {
+        replayBuffers = Caffeine.newBuilder()
+                .expireAfterAccess(replayTtl)
+                .build();
+        sendExecutor = executorBuilder
+                .threadNamePrefix("notification-stream-")
+                .build();
+        Gauge.builder("notifications.stream.connections", this, NotificationStreamService::getConnectionsCount)
+                .register(meterRegistry);
+    }
+
+    // Подключение клиента. Если передан lastEventId, сначала отправляются события после него из буфера
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        ReplayBuffer buffer = buffer(userId);
+        buffer.lock.lock();
+        try {
+            subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(subscriber);
+            if (lastEventId != null) {
+                replay(subscriber, buffer, lastEventId);
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+        return emitter;
+    }
+
+    public void publish(Long eventId, NotificationDTO notification) {
+        Long userId = notification.getUserId();
+        if (userId == null) {
+            return;
+        }
+
+        StreamEvent event = new StreamEvent(eventId, notification);
+        ReplayBuffer buffer = buffer(userId);
+        buffer.lock.lock();
+        try {
+            buffer.events.addLast(event);
+            while (buffer.events.size() > replayBufferSize) {
+                buffer.events.removeFirst();
+            }
+
+            Set<Subscriber> userSubscribers = subscribers.get(userId);
+            if (userSubscribers != null) {
+                userSubscribers.forEach(subscriber -> subscriber.enqueue(toSseEvent(event)));
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    // Комментарий-пинг: не дает прокси закрыть простаивающее соединение и выявляет отключившихся клиентов
+    @Scheduled(fixedDelayString = "${notification.stream.heartbeat-interval-ms}")
+    public void heartbeat() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(
+                subscriber -> subscriber.enqueue(SseEmitter.event().comment("ping"))));
+    }
+
+    public int getConnectionsCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void replay(Subscriber subscriber, ReplayBuffer buffer, Long lastEventId) {
+        Iterator<StreamEvent> events = buffer.events.iterator();
+        while (events.hasNext()) {
+            if (Objects.equals(events.next().id(), lastEventId)) {
+                events.forEachRemaining(event -> subscriber.enqueue(toSseEvent(event)));
+                return;
+            }
+        }
+        subscriber.enqueue(SseEmitter.event()
+                .name(RESYNC_EVENT_NAME)
+                .data(String.valueOf(lastEventId)));
+    }
+
+    private SseEmitter.SseEventBuilder toSseEvent(StreamEvent event) {
+        return SseEmitter.event()
+                .id(String.valueOf(event.id()))
+                .name(EVENT_NAME)
+                .data(event.notification());
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+
+    private ReplayBuffer buffer(Long userId) {
+        return replayBuffers.get(userId, id -> new ReplayBuffer());
+    }
+
+    private record StreamEvent(Long id, NotificationDTO notification) {
+    }
+
+    private static class ReplayBuffer {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Deque<StreamEvent> events = new ArrayDeque<>();
+    }
+
+    // Подключение клиента со своей очередью отправки. События пишутся в сокет по одному в порядке постановки,
+    // одновременно очередь разбирает не больше одного потока
+    private class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (queued.incrementAndGet() > sendQueueSize) {
+                // Клиент не успевает читать: соединение закрывается, клиент переподключится с Last-Event-ID
+                log.debug("Notification stream of user {} is too slow, closing it", userId);
+                close();
+                // complete() ждет записи, которую может удерживать зависший на сокете поток отправки
+                sendExecutor.execute(emitter::complete);
+                return;
+            }
+            queue.add(event);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            SseEmitter.SseEventBuilder event;
+            while (!closed.get() && (event = queue.poll()) != null) {
+                queued.decrementAndGet();
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Notification stream of user {} is closed: {}", userId, e.toString());
+                    close();
+                    return;
+                }
+            }
+            draining.set(false);
+            // Событие могло попасть в очередь после последнего poll, но до сброса флага
+            if (!closed.get() && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                queue.clear();
+                remove(this);
+            }
+        }
+    }
+}
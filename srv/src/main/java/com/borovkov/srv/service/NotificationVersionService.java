@@ -0,0 +1,36 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.utils.ETagUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+// Версия списка уведомлений пользователя для условного GET /notification/list без обращения к message-brokers.
+// Версию ведет message-brokers (NotificationVersionPublisher): номер изменения непрочитанных уведомлений,
+// увеличивается в транзакции сохранения или прочтения и публикуется в Redis только после коммита.
+// Поэтому ETag никогда не опережает сохраненные уведомления, сколько бы ни отставал консьюмер message-brokers
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationVersionService {
+
+    private static final String KEY_PREFIX = "message-brokers:notification-versions:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    // null - версия неизвестна (изменение еще не зафиксировано или ключ истек), ответ отдается без ETag
+    public String getETag(Long userId) {
+        try {
+            String version = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+            if (version == null) {
+                return null;
+            }
+            return ETagUtils.weak("notifications", userId, Long.parseLong(version));
+        } catch (DataAccessException | NumberFormatException e) {
+            log.warn("Failed to read notification version of user {}: {}", userId, e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.models.NotificationType;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.repositories.OverdueTaskRepository;
+import com.borovkov.srv.repositories.OverdueTaskRepository.OverdueTask;
+import com.borovkov.srv.repositories.OverdueTaskRepository.Watermark;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+// Фоновый перевод задач с истекшим сроком в статус OVERDUE.
+// Каждая пачка - отдельная транзакция под advisory lock: на нескольких узлах srv пачки выполняются строго по очереди,
+// а водяной знак (deadline, id) последней обработанной задачи сохраняется вместе с пачкой.
+// Задачи, оказавшиеся позади водяного знака (создана с прошедшим сроком, срок перенесен назад, строка была заблокирована),
+// подбирает периодический проход с начала индекса
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OverdueTaskSweeper {
+
+    private static final String JOB_NAME = "tasks-overdue";
+
+    // Ключ pg advisory lock, общий для всех узлов srv
+    private static final long LOCK_KEY = 7_310_452_001L;
+
+    private static final Watermark START = new Watermark(LocalDateTime.of(1, 1, 1, 0, 0), 0L);
+
+    private final OverdueTaskRepository overdueTaskRepository;
+    private final NotificationService notificationService;
+    private final TaskStatsService taskStatsService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${tasks.overdue.chunk-size}")
+    private int chunkSize;
+
+    @Scheduled(fixedDelayString = "${tasks.overdue.interval-ms}")
+    public void sweep() {
+        sweep(false);
+    }
+
+    @Scheduled(cron = "${tasks.overdue.catch-up-cron}")
+    public void catchUp() {
+        sweep(true);
+    }
+
+    private void sweep(boolean fromStart) {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+
+        Watermark after = null;
+        ChunkResult result;
+        do {
+            Watermark from = after;
+            result = transactionTemplate.execute(status -> sweepChunk(from, fromStart, now));
+            if (result == null) {
+                return;
+            }
+            after = result.watermark();
+            total += result.updated();
+        } while (result.updated() == chunkSize);
+
+        if (total > 0) {
+            log.info("Marked {} tasks as overdue", total);
+        }
+    }
+
+    // null - блокировку держит другой узел
+    private ChunkResult sweepChunk(Watermark after, boolean fromStart, LocalDateTime now) {
+        if (!overdueTaskRepository.tryLock(LOCK_KEY)) {
+            return null;
+        }
+
+        Watermark saved = overdueTaskRepository.findWatermark(JOB_NAME).orElse(START);
+        Watermark from = fromStart ? Objects.requireNonNullElse(after, START) : saved;
+
+        List<OverdueTask> tasks = overdueTaskRepository.markOverdue(from, now, chunkSize);
+        if (tasks.isEmpty()) {
+            return new ChunkResult(from, 0);
+        }
+
+        OverdueTask last = tasks.get(tasks.size() - 1);
+        Watermark reached = new Watermark(last.deadline(), last.id());
+        // Проход с начала не отодвигает водяной знак назад
+        if (!fromStart || isAfter(reached, saved)) {
+            overdueTaskRepository.saveWatermark(JOB_NAME, reached);
+        }
+
+        TaskStatsService.Delta statsDelta = taskStatsService.delta();
+        tasks.forEach(task -> statsDelta.statusChanged(task.groupId(), task.previousStatus(), Task.STATUS.OVERDUE));
+        taskStatsService.apply(statsDelta);
+
+        notificationService.saveAllToOutbox(buildNotifications(tasks));
+        return new ChunkResult(reached, tasks.size());
+    }
+
+    // Одно уведомление на исполнителя за пачку
+    private List<String> buildNotifications(List<OverdueTask> tasks) {
+        return notificationService.groupedMessages(tasks, OverdueTask::assignedTo,
+                task -> String.format("Статус задачи '%s' обновлен на - 'OVERDUE'", task.title()),
+                "Просрочено задач: %d",
+                NotificationType.TASK_STATUS_UPDATED);
+    }
+
+    private boolean isAfter(Watermark left, Watermark right) {
+        int compare = left.deadline().compareTo(right.deadline());
+        return compare > 0 || compare == 0 && left.id() > right.id();
+    }
+
+    private record ChunkResult(Watermark watermark, int updated) {
+    }
+}
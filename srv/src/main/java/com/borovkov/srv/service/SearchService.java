@@ -0,0 +1,105 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.dto.response.CommentResponseDto;
+import com.borovkov.srv.dto.response.SearchHitDto;
+import com.borovkov.srv.dto.response.TaskResponseDto;
+import com.borovkov.srv.mapper.CommonMapper;
+import com.borovkov.srv.models.Comment;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.repositories.CommentsRepository;
+import com.borovkov.srv.repositories.TaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Поиск по задачам (PostgreSQL, tsvector) и комментариям (MongoDB, текстовый индекс) с общим ранжированием
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    // Константа reciprocal rank fusion: чем больше, тем меньше разрыв между первыми местами списков
+    private static final int RANK_FUSION_CONSTANT = 60;
+
+    private final TaskRepository taskRepository;
+    private final CommentsRepository commentsRepository;
+    private final TaskService taskService;
+    private final CommonMapper commonMapper;
+    private final UserResolver userResolver;
+
+    @Value("${search.max-size}")
+    private int maxSize;
+
+    // ts_rank_cd и textScore Mongo несопоставимы по шкале, поэтому списки объединяются по позициям (reciprocal rank fusion):
+    // score = 1 / (k + место в своем списке). Из каждого хранилища достаточно взять size лучших результатов
+    public List<SearchHitDto> search(String text, Long groupId, int size) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        if (size < 1 || size > maxSize) {
+            throw new IllegalArgumentException("Search size must be between 1 and %d".formatted(maxSize));
+        }
+
+        List<SearchHitDto> hits = new ArrayList<>(size * 2);
+        hits.addAll(searchTasks(text, groupId, size));
+        hits.addAll(searchComments(text, groupId, size));
+
+        // Сортировка устойчивая: при равном score задача идет раньше комментария
+        hits.sort(Comparator.comparingDouble(SearchHitDto::getScore).reversed());
+        return hits.size() > size ? hits.subList(0, size) : hits;
+    }
+
+    private List<SearchHitDto> searchTasks(String text, Long groupId, int size) {
+        List<Long> ids = taskRepository.searchByText(groupId, text, size).stream()
+                .map(TaskRepository.TaskRank::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Задачи загружаются одним запросом по первичному ключу, порядок релевантности восстанавливается по ids
+        Map<Long, Task> tasks = taskRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+        List<Task> ordered = ids.stream()
+                .map(tasks::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        List<TaskResponseDto> content = taskService.initTaskResponseDto(ordered);
+        List<SearchHitDto> hits = new ArrayList<>(content.size());
+        for (int i = 0; i < content.size(); i++) {
+            hits.add(new SearchHitDto(SearchHitDto.Type.TASK, fusedScore(i), content.get(i), null));
+        }
+        return hits;
+    }
+
+    private List<SearchHitDto> searchComments(String text, Long groupId, int size) {
+        List<Comment> comments = commentsRepository.searchByText(groupId, text, size);
+        if (comments.isEmpty()) {
+            return List.of();
+        }
+
+        List<CommentResponseDto> content = comments.stream()
+                .map(commonMapper::toCommentResponseDto)
+                .toList();
+        Map<Long, String> usernames = userResolver.getUsernames(content.stream().map(CommentResponseDto::getUserId).toList());
+        content.forEach(dto -> dto.setUsername(usernames.get(dto.getUserId())));
+
+        List<SearchHitDto> hits = new ArrayList<>(content.size());
+        for (int i = 0; i < content.size(); i++) {
+            hits.add(new SearchHitDto(SearchHitDto.Type.COMMENT, fusedScore(i), null, content.get(i)));
+        }
+        return hits;
+    }
+
+    private double fusedScore(int position) {
+        return 1.0 / (RANK_FUSION_CONSTANT + position + 1);
+    }
+}
@@ -0,0 +1,164 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.dto.request.TaskRequestDto;
+import com.borovkov.srv.dto.response.ImportResultDto;
+import com.borovkov.srv.models.NotificationType;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.repositories.TaskRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+// Потоковый импорт задач из NDJSON: одна задача (TaskRequestDto) в строке, поток может быть сжат gzip.
+// Строки разбираются по одной, готовые задачи копятся до tasks.import.batch-size и сохраняются отдельной транзакцией
+// JDBC-батчами. Следующая порция читается из запроса только после сохранения предыдущей, поэтому клиент
+// не может прислать больше, чем сервер успевает записать, а память ограничена одной порцией.
+// Импорт не атомарный: ошибка строки или порции не отменяет уже сохраненные порции
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskImportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TaskRepository repository;
+    private final UserService userService;
+    private final NotificationService notificationService;
+    private final TaskStatsService taskStatsService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${tasks.import.batch-size}")
+    private int batchSize;
+
+    @Value("${tasks.import.max-errors}")
+    private int maxErrors;
+
+    public ImportResultDto importTasks(InputStream in, boolean notify, Principal principal) throws IOException {
+        Long userId = userService.getUserId(principal);
+        Long groupId = userService.getGroupId(principal);
+
+        // Состав группы загружается один раз на весь импорт, исполнители проверяются по нему без запросов к БД
+        Set<Long> groupUserIds = userService.getGroupUserIds(groupId);
+
+        ObjectReader reader = objectMapper.readerFor(TaskRequestDto.class);
+        ImportResultDto result = new ImportResultDto();
+        List<Task> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(decode(in), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            long lineNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    batch.add(toTask(reader.readValue(line), groupUserIds, userId, groupId));
+                    batchLines.add(lineNumber);
+                } catch (JsonProcessingException e) {
+                    addError(result, lineNumber, "Malformed task: " + e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    addError(result, lineNumber, e.getMessage());
+                }
+
+                if (batch.size() == batchSize) {
+                    saveBatch(batch, batchLines, notify, result);
+                    batch.clear();
+                    batchLines.clear();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            saveBatch(batch, batchLines, notify, result);
+        }
+        return result;
+    }
+
+    // Порция сохраняется целиком или не сохраняется: при ошибке БД все ее строки попадают в отчет
+    private void saveBatch(List<Task> batch, List<Long> lines, boolean notify, ImportResultDto result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(batch);
+
+                TaskStatsService.Delta statsDelta = taskStatsService.delta();
+                batch.forEach(statsDelta::add);
+                taskStatsService.apply(statsDelta);
+
+                if (notify) {
+                    notificationService.saveAllToOutbox(buildNotifications(batch));
+                }
+            });
+            result.setImported(result.getImported() + batch.size());
+        } catch (DataAccessException e) {
+            log.warn("Failed to save import batch of {} tasks", batch.size(), e);
+            lines.forEach(line -> addError(result, line, "Task was not saved, the batch containing it failed"));
+        }
+    }
+
+    private Task toTask(TaskRequestDto dto, Set<Long> groupUserIds, Long userId, Long groupId) {
+        if (dto.getAssignedTo() == null || dto.getTitle() == null) {
+            throw new IllegalArgumentException("Fields \"assignedTo\" and \"title\" must not be null");
+        }
+        if (!groupUserIds.contains(dto.getAssignedTo())) {
+            throw new IllegalArgumentException("User with id={ %d } not found in the group".formatted(dto.getAssignedTo()));
+        }
+
+        // Статус переносится из исходного трекера, по умолчанию - NEW
+        Task task = new Task();
+        task.setTitle(dto.getTitle());
+        task.setDescription(dto.getDescription());
+        task.setStatus(dto.getStatus() != null ? dto.getStatus() : Task.STATUS.NEW);
+        task.setAssignedTo(dto.getAssignedTo());
+        task.setDeadline(dto.getDeadline());
+        task.setCreatedBy(userId);
+        task.setGroupId(groupId);
+        return task;
+    }
+
+    // Одно уведомление на исполнителя за порцию
+    private List<String> buildNotifications(List<Task> batch) {
+        return notificationService.groupedMessages(batch, Task::getAssignedTo,
+                task -> String.format("Создана новая задача: %s", task.getTitle()),
+                "Импортировано задач: %d",
+                NotificationType.TASK_CREATED);
+    }
+
+    private void addError(ImportResultDto result, long line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(new ImportResultDto.LineError(line, message));
+        }
+    }
+
+    // Сжатый поток определяется по сигнатуре gzip (1f 8b), строка JSON так начинаться не может
+    private InputStream decode(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        return first == 0x1f && second == 0x8b ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+    }
+}
@@ -1,24 +1,41 @@
 package com.borovkov.srv.service;
 
+import com.borovkov.srv.dto.response.CursorPageDto;
 import com.borovkov.srv.dto.response.TaskResponseDto;
+import com.borovkov.srv.exception.PreconditionFailedException;
 import com.borovkov.srv.mapper.CommonMapper;
 import com.borovkov.srv.models.NotificationType;
 import com.borovkov.srv.models.Task;
 import com.borovkov.srv.models.User;
-import com.borovkov.srv.producer.RabbitMQStatusProducer;
+import com.borovkov.srv.repositories.CommentsRepository;
 import com.borovkov.srv.repositories.TaskRepository;
+import com.borovkov.srv.utils.BulkIdsUtils;
+import com.borovkov.srv.utils.CursorUtils;
+import com.borovkov.srv.utils.ETagUtils;
+import com.borovkov.srv.utils.TaskSpecifications;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.security.Principal;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -27,8 +44,16 @@ public class TaskService {
     private final TaskRepository repository;
     private final UserService userService;
     private final CommonMapper commonMapper;
-    private final RabbitMQStatusProducer rabbitMQStatusProducer;
     private final NotificationService notificationService;
+    private final UserResolver userResolver;
+    private final CommentsRepository commentsRepository;
+    private final TaskStatsService taskStatsService;
+
+    @Value("${tasks.bulk.max-size}")
+    private int bulkMaxSize;
+
+    @Value("${tasks.cursor.max-size}")
+    private int cursorMaxSize;
 
     public Task getTaskById(Long id) {
         return repository.findById(id)
@@ -39,11 +64,63 @@ public class TaskService {
         return repository.findAll(spec, pageable);
     }
 
+    // Keyset-пагинация: следующая страница ищется по индексу от значения (поле сортировки, id) последней записи,
+    // без OFFSET и без count, если общее количество не запрошено явно
+    public CursorPageDto<TaskResponseDto> getTasksByCursor(Specification<Task> spec,
+                                                           Sort.Order order,
+                                                           String cursor,
+                                                           int size,
+                                                           boolean withTotal) {
+        if (size < 1 || size > cursorMaxSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and %d".formatted(cursorMaxSize));
+        }
+
+        Sort sort = "id".equals(order.getProperty())
+                ? Sort.by(order)
+                : Sort.by(order).and(Sort.by(order.getDirection(), "id"));
+
+        Specification<Task> pageSpec = cursor == null
+                ? spec
+                : spec.and(TaskSpecifications.after(CursorUtils.decode(cursor, order)));
+
+        List<Task> tasks = repository.findBy(pageSpec, query -> query.sortBy(sort).limit(size + 1).all());
+
+        boolean hasNext = tasks.size() > size;
+        if (hasNext) {
+            tasks = tasks.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Task last = tasks.get(tasks.size() - 1);
+            nextCursor = CursorUtils.encode(new CursorUtils.Cursor(
+                    order.getProperty(),
+                    order.getDirection(),
+                    CursorUtils.fieldValue(last, order.getProperty()),
+                    last.getId().toString()
+            ));
+        }
+
+        Long total = withTotal ? repository.count(spec) : null;
+        return new CursorPageDto<>(initTaskResponseDto(tasks), nextCursor, hasNext, total);
+    }
+
+    // Версия задачи для условного GET: group_id и updated_at одним запросом, без загрузки задачи и имен пользователей
+    public TaskRepository.TaskVersion getVersion(Long id, Principal principal) {
+        TaskRepository.TaskVersion version = repository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Task with id={ %d } not found".formatted(id)));
+
+        if (!version.getGroupId().equals(userService.getGroupId(principal))) {
+            throw new AccessDeniedException("You are not allowed to view this task as it does not belong to your group and you are not the creator");
+        }
+
+        return version;
+    }
+
     public TaskResponseDto getByIdForController(Long id, Principal principal) {
         Task task = getTaskById(id);
-        User user = userService.getUserByUsername(principal.getName());
 
-        if (!task.getGroupId().equals(user.getId()) && !task.getGroupId().equals(user.getCreatedBy())) {
+        if (!task.getGroupId().equals(userService.getGroupId(principal))) {
             throw new AccessDeniedException("You are not allowed to view this task as it does not belong to your group and you are not the creator");
         }
 
@@ -64,58 +141,137 @@ public class TaskService {
         }
 
         userService.checkExistsUserById(task.getAssignedTo());
-        User user = userService.getUserByUsername(principal.getName());
 
         task.setId(null);
-        task.setCreatedBy(user.getId());
+        task.setCreatedBy(userService.getUserId(principal));
         task.setStatus(Task.STATUS.NEW);
-        task.setGroupId(userService.getGroupId(user));
+        task.setGroupId(userService.getGroupId(principal));
 
         Task savedTask = repository.save(task);
+        taskStatsService.apply(taskStatsService.delta().add(savedTask));
 
         String message = String.format("Создана новая задача: %s", savedTask.getTitle());
         String notificationMessage = notificationService.generationNotificationMessage(savedTask, message, NotificationType.TASK_CREATED);
 
-        notificationService.registerRabbitMQNotification(rabbitMQStatusProducer, notificationMessage);
+        notificationService.saveToOutbox(notificationMessage);
 
         return savedTask;
     }
 
     @Transactional
-    public TaskResponseDto updateForController(Task task, Principal principal) {
-        Task updatedTask = update(task, principal);
+    public TaskResponseDto updateForController(Task task, String ifMatch, Principal principal) {
+        Task updatedTask = update(task, ifMatch, principal);
         return initTaskResponseDto(updatedTask);
     }
 
     @Transactional
     public Task update(Task updatedTask, Principal principal) {
+        return update(updatedTask, null, principal);
+    }
+
+    // ifMatch - значение заголовка If-Match. Задача блокируется до конца транзакции, поэтому проверка версии, приращения
+    // статистики и запись атомарны: параллельное обновление или перевод в OVERDUE не теряются и не учитываются дважды.
+    // Изменения сбрасываются в БД сразу: updatedAt в ответе, а значит и новый ETag, соответствует записанной версии
+    @Transactional
+    public Task update(Task updatedTask, String ifMatch, Principal principal) {
         if (updatedTask.getAssignedTo() == null || updatedTask.getTitle() ==  null) {
             throw new IllegalArgumentException("AssignedTo and Title must not be null");
         }
 
-        checkUpdateTask(updatedTask, principal);
+        Task oldTask = repository.findByIdForUpdate(updatedTask.getId())
+                .orElseThrow(() -> new EntityNotFoundException("Task with id={ %d } not found".formatted(updatedTask.getId())));
+        checkUpdateTask(oldTask, userService.getUserByUsername(principal.getName()));
 
-        Task oldTask = getTaskById(updatedTask.getId());
-
-        oldTask.setTitle(updatedTask.getTitle());
-        oldTask.setDescription(updatedTask.getDescription());
-        oldTask.setAssignedTo(updatedTask.getAssignedTo());
-        oldTask.setDeadline(updatedTask.getDeadline());
+        if (ifMatch != null && !ETagUtils.matchesStrong(ifMatch, ETagUtils.task(oldTask.getId(), oldTask.getUpdatedAt()))) {
+            throw new PreconditionFailedException("Task with id={ %d } has been modified".formatted(oldTask.getId()));
+        }
 
-        if (!oldTask.getStatus().equals(updatedTask.getStatus())) {
-            oldTask.setStatus(updatedTask.getStatus());
+        TaskStatsService.Delta statsDelta = taskStatsService.delta().remove(oldTask);
+        boolean statusChanged = applyUpdate(oldTask, updatedTask);
+        taskStatsService.apply(statsDelta.add(oldTask));
 
-            Task savedTask = repository.save(oldTask);
+        if (statusChanged) {
+            Task savedTask = repository.saveAndFlush(oldTask);
 
             String message = String.format("Статус задачи '%s' обновлен на - '%s'", savedTask.getTitle(), savedTask.getStatus());
             String notificationMessage = notificationService.generationNotificationMessage(savedTask, message, NotificationType.TASK_STATUS_UPDATED);
 
-            notificationService.registerRabbitMQNotification(rabbitMQStatusProducer, notificationMessage);
+            notificationService.saveToOutbox(notificationMessage);
 
             return savedTask;
         }
 
-        return repository.save(oldTask);
+        return repository.saveAndFlush(oldTask);
+    }
+
+    // Пакетное создание и обновление задач в одной транзакции: задачи без id создаются, с id - обновляются.
+    // Исполнители проверяются одним запросом, обновляемые задачи загружаются одним запросом,
+    // id новых задач берутся из последовательности пачкой, а вставки и обновления уходят JDBC-батчами при коммите.
+    // Уведомления группируются: одно сообщение на исполнителя для созданных задач и одно - для смены статусов.
+    // Возвращает id задач в порядке запроса
+    @Transactional
+    public List<Long> bulkSave(List<Task> tasks, Principal principal) {
+        if (tasks.size() > bulkMaxSize) {
+            throw new IllegalArgumentException("No more than %d tasks can be saved at once".formatted(bulkMaxSize));
+        }
+
+        tasks.forEach(task -> {
+            if (task.getAssignedTo() == null || task.getTitle() == null) {
+                throw new IllegalArgumentException("Fields \"assignedTo\" and \"title\" must not be null");
+            }
+        });
+
+        userService.checkExistsUsersByIds(tasks.stream()
+                .map(Task::getAssignedTo)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+
+        User user = userService.getUserByUsername(principal.getName());
+        Long groupId = userService.getGroupId(user);
+
+        Map<Long, Task> oldTasks = loadTasksForUpdate(tasks);
+
+        List<Task> created = new ArrayList<>();
+        List<Task> statusUpdated = new ArrayList<>();
+        List<Task> toSave = new ArrayList<>(tasks.size());
+        TaskStatsService.Delta statsDelta = taskStatsService.delta();
+
+        for (Task task : tasks) {
+            if (task.getId() == null) {
+                task.setCreatedBy(user.getId());
+                task.setStatus(Task.STATUS.NEW);
+                task.setGroupId(groupId);
+                statsDelta.add(task);
+                toSave.add(task);
+                created.add(task);
+            } else {
+                Task oldTask = oldTasks.get(task.getId());
+                checkUpdateTask(oldTask, user);
+                statsDelta.remove(oldTask);
+                if (applyUpdate(oldTask, task)) {
+                    statusUpdated.add(oldTask);
+                }
+                statsDelta.add(oldTask);
+                toSave.add(oldTask);
+            }
+        }
+
+        List<Task> savedTasks = repository.saveAll(toSave);
+        // Приращения всей пачки складываются и уходят одним батчем
+        taskStatsService.apply(statsDelta);
+
+        List<String> notifications = new ArrayList<>(notificationService.groupedMessages(created, Task::getAssignedTo,
+                task -> String.format("Создана новая задача: %s", task.getTitle()),
+                "Создано новых задач: %d",
+                NotificationType.TASK_CREATED));
+        notifications.addAll(notificationService.groupedMessages(statusUpdated, Task::getAssignedTo,
+                task -> String.format("Статус задачи '%s' обновлен на - '%s'", task.getTitle(), task.getStatus()),
+                "Обновлен статус задач: %d",
+                NotificationType.TASK_STATUS_UPDATED));
+        notificationService.saveAllToOutbox(notifications);
+
+        return savedTasks.stream()
+                .map(Task::getId)
+                .toList();
     }
 
     @Transactional
@@ -125,17 +281,20 @@ public class TaskService {
             throw new AccessDeniedException("Only an administrator can delete tasks");
         }
         checkAdminGroupId(admin.getId(), ids);
-
-        List<Long> deletedIds = new ArrayList<>();
-
-        for (Long id : ids) {
-            if (repository.existsById(id)) {
-                repository.deleteById(id);
-                deletedIds.add(id);
-            } else {
-                throw new EntityNotFoundException(String.format("Task with id={ %d } not found", id));
+        repository.lockByIdIn(ids);
+        taskStatsService.beforeDelete(ids);
+
+        // Один DELETE ... WHERE id IN (...): все id уже проверены, поэтому удаление либо целиком, либо откат
+        repository.deleteAllByIdInBatch(ids);
+
+        // Комментарии задач лежат в MongoDB и в транзакцию не входят - удаляются одним запросом после коммита
+        List<Long> deletedIds = List.copyOf(ids);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                commentsRepository.deleteByTaskIdIn(deletedIds);
             }
-        }
+        });
 
         return deletedIds;
     }
@@ -146,10 +305,42 @@ public class TaskService {
         }
     }
 
-    private void checkUpdateTask(Task task, Principal principal) {
-        Task oldTask = getTaskById(task.getId());
-        User user = userService.getUserByUsername(principal.getName());
+    // Загрузка всех обновляемых задач одним запросом с блокировкой строк до конца транзакции: приращения статистики
+    // считаются от версии, которая будет перезаписана. Ошибка - по первому отсутствующему id в порядке запроса
+    private Map<Long, Task> loadTasksForUpdate(List<Task> tasks) {
+        List<Long> ids = tasks.stream()
+                .map(Task::getId)
+                .filter(Objects::nonNull)
+                .toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
 
+        Map<Long, Task> oldTasks = repository.findAllByIdForUpdate(ids).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+        ids.forEach(id -> {
+            if (!oldTasks.containsKey(id)) {
+                throw new EntityNotFoundException("Task with id={ %d } not found".formatted(id));
+            }
+        });
+        return oldTasks;
+    }
+
+    // Перенос изменяемых полей. Возвращает true, если изменился статус
+    private boolean applyUpdate(Task oldTask, Task updatedTask) {
+        oldTask.setTitle(updatedTask.getTitle());
+        oldTask.setDescription(updatedTask.getDescription());
+        oldTask.setAssignedTo(updatedTask.getAssignedTo());
+        oldTask.setDeadline(updatedTask.getDeadline());
+
+        if (!oldTask.getStatus().equals(updatedTask.getStatus())) {
+            oldTask.setStatus(updatedTask.getStatus());
+            return true;
+        }
+        return false;
+    }
+
+    private void checkUpdateTask(Task oldTask, User user) {
         // Проверяем права, таску могут менять только ее создатель и админ группы
         if (User.Role.ROLE_ADMIN.equals(user.getRole())) {
             if (!oldTask.getCreatedBy().equals(user.getId()) && !oldTask.getGroupId().equals(user.getId())) {
@@ -163,23 +354,45 @@ public class TaskService {
     }
 
     private TaskResponseDto initTaskResponseDto(Task task) {
+        Map<Long, String> usernames = userResolver.getUsernames(List.of(task.getAssignedTo(), task.getCreatedBy()));
+        return initTaskResponseDto(task, usernames);
+    }
 
-        User assignedToUser = userService.getUserById(task.getAssignedTo());
-        User createdByUser = userService.getUserById(task.getCreatedBy());
+    public Page<TaskResponseDto> initTaskResponseDto(Page<Task> taskPage) {
+        Map<Long, String> usernames = getUsernames(taskPage.getContent());
+        return taskPage.map(task -> initTaskResponseDto(task, usernames));
+    }
+
+    public List<TaskResponseDto> initTaskResponseDto(List<Task> tasks) {
+        Map<Long, String> usernames = getUsernames(tasks);
+        return tasks.stream()
+                .map(task -> initTaskResponseDto(task, usernames))
+                .toList();
+    }
 
+    private Map<Long, String> getUsernames(List<Task> tasks) {
+        Set<Long> userIds = new HashSet<>();
+        tasks.forEach(task -> {
+            userIds.add(task.getAssignedTo());
+            userIds.add(task.getCreatedBy());
+        });
+        return userResolver.getUsernames(userIds);
+    }
+
+    private TaskResponseDto initTaskResponseDto(Task task, Map<Long, String> usernames) {
         TaskResponseDto response = commonMapper.toTaskResponseDto(task);
-        response.setUsernameAssignedTo(assignedToUser.getUsername());
-        response.setUsernameCreatedBy(createdByUser.getUsername());
+        response.setUsernameAssignedTo(usernames.get(task.getAssignedTo()));
+        response.setUsernameCreatedBy(usernames.get(task.getCreatedBy()));
         return response;
     }
 
+    // Группы всех задач загружаются одним запросом
     private void checkAdminGroupId(Long adminId, List<Long> taskIds) {
-        taskIds.forEach(taskId -> {
-            Task task = repository.findById(taskId)
-                    .orElseThrow(() -> new EntityNotFoundException(String.format("Task with id={ %d } not found", taskId)));
-            if (!adminId.equals(task.getGroupId())) {
-                throw new AccessDeniedException("You are not allowed to delete tasks from another group");
-            }
-        });
+        Map<Long, Long> groupIds = repository.findGroupIdsByIdIn(taskIds).stream()
+                .collect(Collectors.toMap(TaskRepository.TaskGroup::getId, TaskRepository.TaskGroup::getGroupId));
+
+        BulkIdsUtils.checkInRequestOrder(taskIds, groupIds, adminId::equals,
+                taskId -> new EntityNotFoundException(String.format("Task with id={ %d } not found", taskId)),
+                () -> new AccessDeniedException("You are not allowed to delete tasks from another group"));
     }
 }
@@ -0,0 +1,52 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.repositories.TaskStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Периодическая сверка счетчиков task_stats с таблицей tasks: исправляет расхождения после ручных правок БД,
+// миграций и сбоев. Каждая группа пересчитывается отдельной транзакцией REPEATABLE READ: если счетчик группы
+// изменила параллельная транзакция, пересчет группы откатывается с ошибкой сериализации и будет повторен
+// следующим запуском, а не затирает свежее приращение значением из старого снимка.
+// Повторный запуск на другом узле безопасен: пересчет идемпотентен
+@Slf4j
+@Service
+public class TaskStatsReconciler {
+
+    private final TaskStatsRepository taskStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public TaskStatsReconciler(TaskStatsRepository taskStatsRepository, PlatformTransactionManager transactionManager) {
+        this.taskStatsRepository = taskStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @Scheduled(cron = "${tasks.stats.reconcile-cron}")
+    public void reconcile() {
+        List<Long> groupIds = taskStatsRepository.findGroupIds();
+
+        int corrected = 0;
+        int skipped = 0;
+        for (Long groupId : groupIds) {
+            try {
+                Integer groupCorrected = transactionTemplate.execute(status -> taskStatsRepository.reconcile(groupId));
+                corrected += groupCorrected == null ? 0 : groupCorrected;
+            } catch (ConcurrencyFailureException e) {
+                skipped++;
+                log.debug("Task stats of group {} changed concurrently, reconciliation postponed", groupId);
+            }
+        }
+
+        if (corrected > 0 || skipped > 0) {
+            log.info("Task stats reconciled: {} counters corrected, {} groups postponed", corrected, skipped);
+        }
+    }
+}
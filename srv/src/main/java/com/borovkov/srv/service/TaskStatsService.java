@@ -0,0 +1,141 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.dto.response.TaskStatsDto;
+import com.borovkov.srv.dto.response.TaskStatsDto.DeadlineBucket;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.repositories.TaskStatsRepository;
+import com.borovkov.srv.repositories.TaskStatsRepository.Counter;
+import com.borovkov.srv.repositories.TaskStatsRepository.Dimension;
+import com.borovkov.srv.repositories.TaskStatsRepository.Stat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Счетчики задач группы по статусу, исполнителю и сроку. Изменения пишутся приращениями в транзакции,
+// которая меняет сами задачи, поэтому чтение статистики - одна выборка по первичному ключу без подсчета задач
+@Service
+@RequiredArgsConstructor
+public class TaskStatsService {
+
+    private static final int WEEK_DAYS = 7;
+
+    private static final String NO_DEADLINE = "NONE";
+
+    // Порядок записи счетчиков одинаковый во всех транзакциях: параллельные изменения не блокируют друг друга крест-накрест
+    private static final Comparator<Counter> COUNTER_ORDER = Comparator.comparing(Counter::groupId)
+            .thenComparing(Counter::dimension)
+            .thenComparing(Counter::bucket);
+
+    private final TaskStatsRepository repository;
+    private final UserResolver userResolver;
+
+    public Delta delta() {
+        return new Delta();
+    }
+
+    // Запись приращений в текущей транзакции. Изменения, не затронувшие счетчики, в БД не уходят
+    public void apply(Delta delta) {
+        Map<Counter, Long> changes = new TreeMap<>(COUNTER_ORDER);
+        delta.deltas.forEach((counter, value) -> {
+            if (value != 0) {
+                changes.put(counter, value);
+            }
+        });
+        if (!changes.isEmpty()) {
+            repository.add(changes);
+        }
+    }
+
+    // Вызывается перед удалением задач в той же транзакции
+    public void beforeDelete(Collection<Long> taskIds) {
+        repository.subtractTasks(taskIds);
+    }
+
+    public TaskStatsDto getStats(Long groupId) {
+        Map<Task.STATUS, Long> byStatus = new EnumMap<>(Task.STATUS.class);
+        for (Task.STATUS status : Task.STATUS.values()) {
+            byStatus.put(status, 0L);
+        }
+        Map<DeadlineBucket, Long> byDeadline = new EnumMap<>(DeadlineBucket.class);
+        for (DeadlineBucket bucket : DeadlineBucket.values()) {
+            byDeadline.put(bucket, 0L);
+        }
+        Map<Long, Long> byAssigneeId = new HashMap<>();
+
+        LocalDate today = LocalDate.now();
+        for (Stat stat : repository.findByGroupId(groupId)) {
+            switch (stat.dimension()) {
+                case STATUS -> byStatus.merge(Task.STATUS.valueOf(stat.bucket()), stat.count(), Long::sum);
+                case ASSIGNEE -> byAssigneeId.merge(Long.valueOf(stat.bucket()), stat.count(), Long::sum);
+                case DEADLINE -> byDeadline.merge(deadlineBucket(stat.bucket(), today), stat.count(), Long::sum);
+            }
+        }
+
+        Map<Long, String> usernames = userResolver.getUsernames(byAssigneeId.keySet());
+        Map<String, Long> byAssignee = new LinkedHashMap<>();
+        byAssigneeId.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .forEach(entry -> byAssignee.put(usernames.get(entry.getKey()), entry.getValue()));
+
+        return new TaskStatsDto(byStatus, byAssignee, byDeadline);
+    }
+
+    private DeadlineBucket deadlineBucket(String bucket, LocalDate today) {
+        if (NO_DEADLINE.equals(bucket)) {
+            return DeadlineBucket.NONE;
+        }
+        LocalDate deadline = LocalDate.parse(bucket);
+        if (deadline.isBefore(today)) {
+            return DeadlineBucket.OVERDUE;
+        }
+        if (deadline.isEqual(today)) {
+            return DeadlineBucket.TODAY;
+        }
+        return deadline.isAfter(today.plusDays(WEEK_DAYS)) ? DeadlineBucket.LATER : DeadlineBucket.WEEK;
+    }
+
+    // Накопитель приращений. Разложение задачи по счетчикам должно совпадать с TaskStatsRepository.COUNTERS_SQL
+    public static class Delta {
+
+        private final Map<Counter, Long> deltas = new HashMap<>();
+
+        public Delta add(Task task) {
+            return change(task, 1);
+        }
+
+        // Для обновления вызывается до изменения полей задачи
+        public Delta remove(Task task) {
+            return change(task, -1);
+        }
+
+        // Только для переходов между незавершенными статусами: счетчики сроков при этом не меняются
+        public Delta statusChanged(Long groupId, Task.STATUS from, Task.STATUS to) {
+            change(new Counter(groupId, Dimension.STATUS, from.name()), -1);
+            change(new Counter(groupId, Dimension.STATUS, to.name()), 1);
+            return this;
+        }
+
+        private Delta change(Task task, long sign) {
+            Long groupId = task.getGroupId();
+            change(new Counter(groupId, Dimension.STATUS, task.getStatus().name()), sign);
+            change(new Counter(groupId, Dimension.ASSIGNEE, task.getAssignedTo().toString()), sign);
+            if (task.getStatus() != Task.STATUS.COMPLETED) {
+                String deadline = task.getDeadline() == null ? NO_DEADLINE : task.getDeadline().toLocalDate().toString();
+                change(new Counter(groupId, Dimension.DEADLINE, deadline), sign);
+            }
+            return this;
+        }
+
+        private void change(Counter counter, long value) {
+            deltas.merge(counter, value, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.borovkov.srv.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Отзыв JWT токенов пользователя: токены, выпущенные до момента отзыва, считаются недействительными.
+// Проверка выполняется по данным в памяти, Redis используется для хранения и рассылки между узлами
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private static final String REVOCATIONS_KEY = "srv:token-revocations";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // userId -> время отзыва (миллисекунды epoch)
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    @Value("${spring.security.jwt.revocation-channel}")
+    private String revocationChannel;
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(
+                (message, pattern) -> onRevocationMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(revocationChannel)
+        );
+
+        redisTemplate.<String, String>opsForHash()
+                .entries(REVOCATIONS_KEY)
+                .forEach((userId, revokedAt) -> register(Long.valueOf(userId), Long.parseLong(revokedAt)));
+    }
+
+    // issuedAtMillis - время выпуска из claim iatMs (JwtService.extractIssuedAtMillis). Токен, выпущенный в ту же
+    // миллисекунду, что и отзыв, считается отозванным
+    public boolean isRevoked(Long userId, Long issuedAtMillis) {
+        Long revokedAt = revokedBefore.get(userId);
+        return revokedAt != null && (issuedAtMillis == null || issuedAtMillis <= revokedAt);
+    }
+
+    // Отзыв после коммита транзакции изменения пользователя. Время отзыва берется в момент коммита,
+    // поэтому отзываются и токены, выпущенные по старым данным, пока транзакция еще не была зафиксирована.
+    // При откате токены остаются действительными
+    public void revokeTokensAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revokeTokens(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revokeTokens(userId);
+            }
+        });
+    }
+
+    public void revokeTokens(Long userId) {
+        long now = Instant.now().toEpochMilli();
+        register(userId, now);
+        removeExpired(now);
+
+        redisTemplate.opsForHash().put(REVOCATIONS_KEY, userId.toString(), String.valueOf(now));
+        redisTemplate.convertAndSend(revocationChannel, userId + ":" + now);
+    }
+
+    private void onRevocationMessage(String message) {
+        String[] parts = message.split(":", 2);
+        if (parts.length == 2) {
+            register(Long.valueOf(parts[0]), Long.parseLong(parts[1]));
+        }
+    }
+
+    private void register(Long userId, long revokedAt) {
+        revokedBefore.merge(userId, revokedAt, Math::max);
+    }
+
+    // Отзыв старше времени жизни токена больше не нужен: такие токены уже истекли
+    private void removeExpired(long now) {
+        long threshold = now - JwtService.TOKEN_TTL.toMillis();
+        revokedBefore.forEach((userId, revokedAt) -> {
+            if (revokedAt < threshold) {
+                revokedBefore.remove(userId, revokedAt);
+                redisTemplate.opsForHash().delete(REVOCATIONS_KEY, userId.toString());
+            }
+        });
+    }
+}
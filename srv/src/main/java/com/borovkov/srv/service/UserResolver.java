@@ -0,0 +1,36 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.cache.UserCache;
+import com.borovkov.srv.models.User;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Пакетное получение имен пользователей для страниц задач и комментариев
+@Service
+@RequiredArgsConstructor
+public class UserResolver {
+
+    private final UserCache userCache;
+
+    public Map<Long, String> getUsernames(Collection<Long> userIds) {
+        Map<Long, User> users = userCache.findAllById(userIds);
+
+        Map<Long, String> usernames = new HashMap<>();
+        for (Long id : userIds) {
+            if (id == null) {
+                continue;
+            }
+            User user = users.get(id);
+            if (user == null) {
+                throw new EntityNotFoundException(String.format("User with id={ %d } not found", id));
+            }
+            usernames.put(id, user.getUsername());
+        }
+        return usernames;
+    }
+}
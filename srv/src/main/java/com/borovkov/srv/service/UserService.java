@@ -1,19 +1,28 @@
 package com.borovkov.srv.service;
 
+import com.borovkov.srv.cache.UserCache;
 import com.borovkov.srv.exception.UsernameAlreadyExistsException;
 import com.borovkov.srv.models.User;
+import com.borovkov.srv.models.UserPrincipal;
 import com.borovkov.srv.repositories.UserRepository;
+import com.borovkov.srv.utils.BulkIdsUtils;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.Principal;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,14 +30,16 @@ public class UserService {
 
     private final UserRepository repository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final TokenRevocationService tokenRevocationService;
 
     public User getUserByUsername(String username) {
-        return repository.findByUsername(username)
+        return userCache.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User with username={ %s } not found".formatted(username)));
     }
 
     public User getUserById(Long id) {
-        return repository.findById(id)
+        return userCache.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(String.format("User with id={ %d } not found", id)));
     }
 
@@ -38,6 +49,20 @@ public class UserService {
         }
     }
 
+    // Проверка существования пачки пользователей одним запросом. Ошибка - по первому отсутствующему id
+    public void checkExistsUsersByIds(Collection<Long> ids) {
+        Set<Long> existingIds = new HashSet<>(repository.findExistingIds(ids));
+        ids.forEach(id -> {
+            if (!existingIds.contains(id)) {
+                throw new EntityNotFoundException(String.format("User with id={ %d } not found", id));
+            }
+        });
+    }
+
+    public Set<Long> getGroupUserIds(Long groupId) {
+        return new HashSet<>(repository.findGroupUserIds(groupId));
+    }
+
     public List<Long> getIdsByUsernameIgnoreCaseContaining(String username) {
         return repository.findByUsernameIgnoreCaseContaining(username);
     }
@@ -67,13 +92,18 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setRole(User.Role.ROLE_USER);
 
-        return repository.save(user);
+        User savedUser = repository.save(user);
+        userCache.evict(savedUser);
+        return savedUser;
     }
 
     @Transactional
     public User updateUser(User newUser, Principal principal) {
 
-        User oldUser = getUserByUsername(principal.getName());
+        // Берем пользователя из БД, а не из кэша: экземпляр из кэша разделяется между потоками
+        User oldUser = repository.findByUsername(principal.getName())
+                .orElseThrow(() -> new UsernameNotFoundException("User with username={ %s } not found".formatted(principal.getName())));
+        userCache.evict(oldUser);
 
         if (newUser.getUsername() != null) {
             checkUsernameExists(newUser.getUsername());
@@ -82,7 +112,10 @@ public class UserService {
         if (newUser.getPassword() != null) {
             oldUser.setPassword(passwordEncoder.encode(newUser.getPassword()));
         }
-        return repository.save(oldUser);
+        User savedUser = repository.save(oldUser);
+        userCache.evict(savedUser);
+        tokenRevocationService.revokeTokensAfterCommit(savedUser.getId());
+        return savedUser;
     }
 
     @Transactional
@@ -91,30 +124,27 @@ public class UserService {
         if (!User.Role.ROLE_ADMIN.equals(admin.getRole())) {
             throw new AccessDeniedException("Only an administrator can delete users");
         }
-        checkUsersCreatedByAdmin(admin.getId(), ids);
+        List<User> users = checkUsersCreatedByAdmin(admin.getId(), ids);
 
-        List<Long> deletedIds = new ArrayList<>();
+        // Один DELETE ... WHERE id IN (...) по уже проверенным id
+        repository.deleteAllByIdInBatch(ids);
 
-        for (Long id : ids) {
-            if (repository.existsById(id)) {
-                repository.deleteById(id);
-                deletedIds.add(id);
-            } else {
-                throw new EntityNotFoundException(String.format("User with id={ %d } not found", id));
-            }
-        }
+        users.forEach(user -> {
+            userCache.evict(user);
+            tokenRevocationService.revokeTokensAfterCommit(user.getId());
+        });
 
-        return deletedIds;
+        return List.copyOf(ids);
     }
 
-    private void checkUsersCreatedByAdmin(Long adminId, List<Long> userIds) {
-        userIds.forEach(userId -> {
-            User user = repository.findById(userId)
-                    .orElseThrow(() -> new EntityNotFoundException(String.format("User with id={ %d } not found", userId)));
-            if (!adminId.equals(user.getCreatedBy())) {
-                throw new AccessDeniedException("You are not allowed to manage users created by another administrator");
-            }
-        });
+    // Пользователи загружаются одним запросом
+    private List<User> checkUsersCreatedByAdmin(Long adminId, List<Long> userIds) {
+        Map<Long, User> usersById = repository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return BulkIdsUtils.checkInRequestOrder(userIds, usersById, user -> adminId.equals(user.getCreatedBy()),
+                userId -> new EntityNotFoundException(String.format("User with id={ %d } not found", userId)),
+                () -> new AccessDeniedException("You are not allowed to manage users created by another administrator"));
     }
 
     public void checkUsernameExists(User user) {
@@ -137,4 +167,27 @@ public class UserService {
         User user = getUserByUsername(username);
         return getGroupId(user);
     }
+
+    // Id группы текущего пользователя: берется из аутентификации, без повторной загрузки пользователя
+    public Long getGroupId(Principal principal) {
+        UserPrincipal userPrincipal = UserPrincipal.from(principal);
+        if (userPrincipal != null) {
+            return userPrincipal.getGroupId();
+        }
+        if (principal instanceof Authentication authentication && authentication.getPrincipal() instanceof User user) {
+            return getGroupId(user);
+        }
+        return getGroupId(principal.getName());
+    }
+
+    public Long getUserId(Principal principal) {
+        UserPrincipal userPrincipal = UserPrincipal.from(principal);
+        if (userPrincipal != null) {
+            return userPrincipal.getId();
+        }
+        if (principal instanceof Authentication authentication && authentication.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+        return getUserByUsername(principal.getName()).getId();
+    }
 }
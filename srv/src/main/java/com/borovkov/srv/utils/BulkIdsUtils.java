@@ -0,0 +1,47 @@
+package com.borovkov.srv.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BulkIdsUtils {
+
+    // Проверка id массовой операции по записям, загруженным одним запросом. Ошибки выдаются в порядке переданных id,
+    // как при прежней поэлементной обработке: сначала существование и доступ всех id, затем повторы - повторный id
+    // считается ненайденным, как и при прежнем поэлементном удалении после проверки всех id.
+    // Возвращает записи в порядке переданных id
+    public static <I, T> List<T> checkInRequestOrder(List<I> ids,
+                                                     Map<I, T> found,
+                                                     Predicate<T> allowed,
+                                                     Function<I, ? extends RuntimeException> notFound,
+                                                     Supplier<? extends RuntimeException> accessDenied) {
+        List<T> records = new ArrayList<>(ids.size());
+        for (I id : ids) {
+            T record = found.get(id);
+            if (record == null) {
+                throw notFound.apply(id);
+            }
+            if (!allowed.test(record)) {
+                throw accessDenied.get();
+            }
+            records.add(record);
+        }
+
+        Set<I> checked = new HashSet<>();
+        for (I id : ids) {
+            if (!checked.add(id)) {
+                throw notFound.apply(id);
+            }
+        }
+        return records;
+    }
+}
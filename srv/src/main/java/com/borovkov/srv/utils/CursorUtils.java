@@ -0,0 +1,93 @@
+package com.borovkov.srv.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Непрозрачный курсор для keyset-пагинации: поле сортировки, направление, значение поля и id последней записи
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class CursorUtils {
+
+    private static final String SEPARATOR = "|";
+    private static final String NULL_VALUE = "N";
+    private static final String VALUE_PREFIX = "V";
+
+    public record Cursor(String field, Sort.Direction direction, String value, String id) {
+    }
+
+    public static String encode(Cursor cursor) {
+        String value = cursor.value() == null ? NULL_VALUE : VALUE_PREFIX + cursor.value();
+        String raw = String.join(SEPARATOR, cursor.field(), cursor.direction().name(), cursor.id(), value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor, Sort.Order order) {
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = raw.split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!parts[0].equals(order.getProperty()) || !parts[1].equals(order.getDirection().name())) {
+            throw new IllegalArgumentException("Cursor does not match sort parameter: " + order.getProperty() + "," + order.getDirection());
+        }
+
+        String value = parts[3].startsWith(VALUE_PREFIX) ? parts[3].substring(VALUE_PREFIX.length()) : null;
+        return new Cursor(parts[0], order.getDirection(), value, parts[2]);
+    }
+
+    // Значение поля сортировки последней записи страницы в строковом виде
+    public static String fieldValue(Object entity, String fieldName) {
+        try {
+            Field field = entity.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            Object value = field.get(entity);
+            if (value == null) {
+                return null;
+            }
+            return value instanceof Enum<?> enumValue ? enumValue.name() : value.toString();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Invalid sorting field: " + fieldName);
+        }
+    }
+
+    // Восстановление значения поля сортировки из курсора с учетом типа поля
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Comparable<?> parseValue(Class<?> clazz, String fieldName, String value) {
+        if (value == null) {
+            return null;
+        }
+
+        Class<?> type;
+        try {
+            type = clazz.getDeclaredField(fieldName).getType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("Invalid sorting field: " + fieldName);
+        }
+
+        try {
+            if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(value);
+            } else if (type == Long.class) {
+                return Long.valueOf(value);
+            } else if (type == Boolean.class) {
+                return Boolean.valueOf(value);
+            } else if (type.isEnum()) {
+                return Enum.valueOf((Class<Enum>) type, value);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return value;
+    }
+}
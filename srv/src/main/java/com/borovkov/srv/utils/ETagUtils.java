@@ -0,0 +1,59 @@
+package com.borovkov.srv.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.http.ETag;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+// ETag строятся по версии данных (updated_at, количество и время последнего изменения), а не по телу ответа,
+// поэтому проверяются без загрузки сущностей. ETag списков слабые: имена пользователей в ответе берутся на момент запроса.
+// ETag задачи сильный: он используется в If-Match, где RFC 9110 требует сильного сравнения. Он меняется
+// с каждой записью задачи (updated_at), смена имени пользователя его не меняет
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ETagUtils {
+
+    public static String weak(Object... parts) {
+        return "W/\"" + Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("-")) + "\"";
+    }
+
+    public static String strong(Object... parts) {
+        return "\"" + Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("-")) + "\"";
+    }
+
+    public static String task(Long id, LocalDateTime updatedAt) {
+        return strong("task", id, toEpochMicros(updatedAt));
+    }
+
+    public static long toEpochMillis(LocalDateTime value) {
+        return value == null ? -1 : value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Проверка If-None-Match: слабое сравнение (без учета W/)
+    public static boolean matches(String header, String etag) {
+        return matches(header, etag, false);
+    }
+
+    // Проверка If-Match: сильное сравнение, слабый ETag ни с чем не совпадает (RFC 9110, 13.1.1)
+    public static boolean matchesStrong(String header, String etag) {
+        return matches(header, etag, true);
+    }
+
+    private static boolean matches(String header, String etag, boolean strong) {
+        ETag current = ETag.create(etag);
+        return ETag.parse(header).stream()
+                .anyMatch(candidate -> candidate.isWildcard() || candidate.compare(current, strong));
+    }
+
+    // PostgreSQL хранит timestamp с точностью до микросекунды
+    private static long toEpochMicros(LocalDateTime value) {
+        if (value == null) {
+            return 0;
+        }
+        return ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), value);
+    }
+}
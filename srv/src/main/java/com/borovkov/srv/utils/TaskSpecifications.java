@@ -0,0 +1,73 @@
+package com.borovkov.srv.utils;
+
+import com.borovkov.srv.dto.request.TaskFilter;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.utils.CursorUtils.Cursor;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.borovkov.srv.utils.SpecificationsUtils.*;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class TaskSpecifications {
+
+    // Условия строятся так, чтобы попадать в индексы из V2__Tasks_indexes.sql:
+    // group_id всегда первым, status сравнивается на равенство, title/description через lower() like
+    public static Specification<Task> byFilter(TaskFilter filter) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            equal(predicates, builder, root, "groupId", filter.getGroupId());
+            ilike(predicates, builder, root, "title", filter.getTitle(), false);
+            ilike(predicates, builder, root, "description", filter.getDescription(), false);
+            equal(predicates, builder, root, "status", filter.getStatus());
+            dateFrom(predicates, builder, root, "createdAt", filter.getCreatedAtFrom());
+            dateTo(predicates, builder, root, "createdAt", filter.getCreatedAtTo());
+            dateFrom(predicates, builder, root, "updatedAt", filter.getUpdatedAtFrom());
+            dateTo(predicates, builder, root, "updatedAt", filter.getUpdatedAtTo());
+            dateFrom(predicates, builder, root, "deadline", filter.getDeadlineFrom());
+            dateTo(predicates, builder, root, "deadline", filter.getDeadlineTo());
+
+            if (filter.getUserIds() != null && !filter.getUserIds().isEmpty()) {
+                predicates.add(root.get("assignedTo").in(filter.getUserIds()));
+            }
+
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Записи строго после курсора в порядке (поле, id). Сортировка null-значений - как в PostgreSQL по умолчанию:
+    // в конце при ASC и в начале при DESC
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Task> after(Cursor cursor) {
+        return (root, query, builder) -> {
+            boolean ascending = cursor.direction().isAscending();
+            Long id = Long.valueOf(cursor.id());
+
+            Path<Long> idPath = root.get("id");
+            Predicate idAfter = ascending ? builder.greaterThan(idPath, id) : builder.lessThan(idPath, id);
+            if ("id".equals(cursor.field())) {
+                return idAfter;
+            }
+
+            Path<Comparable> path = root.get(cursor.field());
+            Comparable value = CursorUtils.parseValue(Task.class, cursor.field(), cursor.value());
+
+            if (value == null) {
+                Predicate nullAfter = builder.and(builder.isNull(path), idAfter);
+                return ascending ? nullAfter : builder.or(nullAfter, builder.isNotNull(path));
+            }
+
+            Predicate after = builder.or(
+                    ascending ? builder.greaterThan(path, value) : builder.lessThan(path, value),
+                    builder.and(builder.equal(path, value), idAfter)
+            );
+            return ascending ? builder.or(after, builder.isNull(path)) : after;
+        };
+    }
+}
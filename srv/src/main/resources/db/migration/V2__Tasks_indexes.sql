@@ -0,0 +1,19 @@
+create extension if not exists pg_trgm;
+
+-- Все запросы /tasks/list фильтруют по group_id, дальше идет сортировка или фильтр по одной из колонок.
+-- id в конце индекса нужен как стабильный порядок для сортировки по умолчанию и keyset-пагинации
+create index if not exists tasks_group_id_id_idx on task_manager.tasks (group_id, id);
+create index if not exists tasks_group_id_created_at_idx on task_manager.tasks (group_id, created_at, id);
+create index if not exists tasks_group_id_updated_at_idx on task_manager.tasks (group_id, updated_at, id);
+create index if not exists tasks_group_id_deadline_idx on task_manager.tasks (group_id, deadline, id);
+create index if not exists tasks_group_id_status_idx on task_manager.tasks (group_id, status, id);
+create index if not exists tasks_group_id_assigned_to_idx on task_manager.tasks (group_id, assigned_to, id);
+create index if not exists tasks_created_by_idx on task_manager.tasks (created_by);
+
+-- Поиск подстроки: SpecificationsUtils.ilike строит lower(column) like '%value%'
+create index if not exists tasks_title_trgm_idx on task_manager.tasks using gin (lower(title) gin_trgm_ops);
+create index if not exists tasks_description_trgm_idx on task_manager.tasks using gin (lower(description) gin_trgm_ops);
+
+-- Фильтры assignedTo/createdBy по подстроке имени и список пользователей администратора
+create index if not exists users_username_trgm_idx on task_manager.users using gin (username gin_trgm_ops);
+create index if not exists users_created_by_idx on task_manager.users (created_by);
@@ -0,0 +1,7 @@
+-- Уведомления пишутся в той же транзакции, что и изменение задачи/комментария,
+-- и затем отправляются в RabbitMQ фоновым процессом (NotificationOutboxRelay)
+create table if not exists task_manager.notification_outbox (
+    id bigserial primary key,
+    payload text not null,
+    created_at timestamp default current_timestamp
+);
@@ -0,0 +1,10 @@
+-- Последовательность с шагом 50 под pooled-генератор Hibernate: id задач выделяются пачкой без обращения к БД
+-- на каждую запись, что позволяет пакетную вставку (с IDENTITY Hibernate вставляет строки по одной).
+-- Первое значение - max(id) + 50: pooled-генератор отдает диапазон (значение - 49 .. значение)
+create sequence if not exists task_manager.tasks_seq increment by 50;
+
+select setval('task_manager.tasks_seq', (select coalesce(max(id), 0) + 50 from task_manager.tasks), false);
+
+-- Вставки мимо Hibernate (скрипты, тесты) берут id из той же последовательности: каждый nextval резервирует
+-- свой диапазон из 50 значений, поэтому с id, выделенными Hibernate, они не пересекаются
+alter table task_manager.tasks alter column id set default nextval('task_manager.tasks_seq');
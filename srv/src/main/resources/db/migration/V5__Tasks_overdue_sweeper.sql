@@ -0,0 +1,12 @@
+-- Частичный индекс только по открытым задачам со сроком: OverdueTaskSweeper идет по нему в порядке (deadline, id),
+-- поэтому стоимость прохода зависит от числа просроченных открытых задач, а не от размера таблицы
+create index if not exists tasks_open_deadline_idx on task_manager.tasks (deadline, id)
+    where status in ('NEW', 'IN_PROGRESS') and deadline is not null;
+
+-- Позиции фоновых задач: до какой записи (deadline, id) уже обработано
+create table if not exists task_manager.job_watermarks (
+    name varchar primary key,
+    last_deadline timestamp,
+    last_id bigint,
+    updated_at timestamp default current_timestamp
+);
@@ -0,0 +1,14 @@
+create extension if not exists btree_gin;
+
+-- Полнотекстовый поиск по задачам. Колонка вычисляется самой БД при insert/update, приложение ее не пишет.
+-- Конфигурация russian приводит русские слова к основе, латиница идет через english_stem.
+-- Вес A у заголовка и B у описания: совпадение в заголовке ранжируется выше
+alter table task_manager.tasks
+    add column if not exists search_vector tsvector
+        generated always as (
+            setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('russian', coalesce(description, '')), 'B')
+        ) stored;
+
+-- group_id в том же GIN-индексе (btree_gin): поиск всегда ограничен группой пользователя
+create index if not exists tasks_group_id_search_vector_idx on task_manager.tasks using gin (group_id, search_vector);
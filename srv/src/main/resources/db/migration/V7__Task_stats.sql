@@ -0,0 +1,23 @@
+-- Счетчики задач группы по измерениям:
+--   STATUS   - bucket = статус задачи;
+--   ASSIGNEE - bucket = id исполнителя;
+--   DEADLINE - bucket = день срока (YYYY-MM-DD) или NONE, только по незавершенным задачам.
+-- Обновляются приращениями в той же транзакции, что и сами задачи, расхождения исправляет TaskStatsReconciler
+create table if not exists task_manager.task_stats (
+    group_id bigint not null,
+    dimension varchar not null check ( dimension in ('STATUS', 'ASSIGNEE', 'DEADLINE') ),
+    bucket varchar not null,
+    task_count bigint not null,
+    primary key (group_id, dimension, bucket)
+);
+
+insert into task_manager.task_stats (group_id, dimension, bucket, task_count)
+select group_id, 'STATUS', status, count(*) from task_manager.tasks group by group_id, status
+union all
+select group_id, 'ASSIGNEE', assigned_to::varchar, count(*) from task_manager.tasks group by group_id, assigned_to
+union all
+select group_id, 'DEADLINE', coalesce(to_char(deadline, 'YYYY-MM-DD'), 'NONE'), count(*)
+from task_manager.tasks
+where status <> 'COMPLETED'
+group by group_id, coalesce(to_char(deadline, 'YYYY-MM-DD'), 'NONE')
+on conflict do nothing;
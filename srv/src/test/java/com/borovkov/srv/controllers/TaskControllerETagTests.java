@@ -0,0 +1,98 @@
+package com.borovkov.srv.controllers;
+
+import com.borovkov.srv.dto.response.TaskResponseDto;
+import com.borovkov.srv.mapper.CommonMapper;
+import com.borovkov.srv.repositories.TaskRepository;
+import com.borovkov.srv.service.ExportService;
+import com.borovkov.srv.service.TaskImportService;
+import com.borovkov.srv.service.TaskService;
+import com.borovkov.srv.service.TaskStatsService;
+import com.borovkov.srv.service.UserService;
+import com.borovkov.srv.utils.ETagUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Условный GET /tasks/{id}: при совпадении If-None-Match задача не загружается и ответ - 304
+@ExtendWith(MockitoExtension.class)
+class TaskControllerETagTests {
+
+    private static final Long TASK_ID = 42L;
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+    private static final String ETAG = ETagUtils.task(TASK_ID, UPDATED_AT);
+    private static final Principal PRINCIPAL = () -> "admin";
+
+    @Mock
+    private TaskService taskService;
+    @Mock
+    private UserService userService;
+    @Mock
+    private CommonMapper commonMapper;
+    @Mock
+    private TaskStatsService taskStatsService;
+    @Mock
+    private ExportService exportService;
+    @Mock
+    private TaskImportService taskImportService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new TaskController(
+                taskService, userService, commonMapper, taskStatsService, exportService, taskImportService
+        )).build();
+
+        TaskRepository.TaskVersion version = mock(TaskRepository.TaskVersion.class);
+        when(version.getUpdatedAt()).thenReturn(UPDATED_AT);
+        when(taskService.getVersion(eq(TASK_ID), any())).thenReturn(version);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        mockMvc.perform(get("/tasks/{id}", TASK_ID).principal(PRINCIPAL).header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+
+        verify(taskService, never()).getByIdForController(any(), any());
+    }
+
+    // If-None-Match сравнивается слабо: W/ перед тем же значением тоже дает 304
+    @Test
+    void weakIfNoneMatchIsNotModified() throws Exception {
+        mockMvc.perform(get("/tasks/{id}", TASK_ID).principal(PRINCIPAL).header(HttpHeaders.IF_NONE_MATCH, "W/" + ETAG))
+                .andExpect(status().isNotModified());
+
+        verify(taskService, never()).getByIdForController(any(), any());
+    }
+
+    @Test
+    void staleIfNoneMatchReturnsTask() throws Exception {
+        TaskResponseDto response = new TaskResponseDto();
+        response.setId(TASK_ID);
+        when(taskService.getByIdForController(eq(TASK_ID), any())).thenReturn(response);
+
+        String stale = ETagUtils.task(TASK_ID, UPDATED_AT.minusSeconds(1));
+        mockMvc.perform(get("/tasks/{id}", TASK_ID).principal(PRINCIPAL).header(HttpHeaders.IF_NONE_MATCH, stale))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+    }
+}
@@ -0,0 +1,126 @@
+package com.borovkov.srv.repositories;
+
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.utils.CursorUtils;
+import com.borovkov.srv.utils.TaskSpecifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Проходит /tasks/cursor постранично по задачам с null в deadline и повторяющимися значениями полей сортировки
+// и сверяет результат с той же сортировкой без курсора: ни одна задача не пропущена и не повторена
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskCursorPaginationTests {
+
+    private static final int TASKS = 50;
+    private static final int PAGE_SIZE = 4;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static Long groupId;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        if (groupId != null) {
+            return;
+        }
+        groupId = jdbcTemplate.queryForObject("""
+                insert into task_manager.users (username, password, role)
+                values ('cursor_admin', 'password', 'ROLE_ADMIN')
+                returning id
+                """, Long.class);
+        // Каждая четвертая задача без срока, остальные сроки и статусы повторяются;
+        // created_at у всех задач одинаковый - порядок внутри страницы определяет только id
+        jdbcTemplate.update("""
+                insert into task_manager.tasks (title, description, status, assigned_to, created_by, created_at,
+                                                updated_at, deadline, group_id)
+                select 'Задача ' || g, 'Описание ' || g,
+                       (array['NEW', 'IN_PROGRESS', 'COMPLETED', 'OVERDUE'])[1 + g % 3],
+                       ?, ?, timestamp '2024-01-01 12:00:00', timestamp '2024-01-01 12:00:00' + g % 5 * interval '1 hour',
+                       case when g % 4 = 0 then null else timestamp '2024-02-01 00:00:00' + g % 3 * interval '1 day' end,
+                       ?
+                from generate_series(1, ?) g
+                """, groupId, groupId, groupId, TASKS);
+    }
+
+    static Stream<Arguments> orders() {
+        return Stream.of(Sort.Direction.ASC, Sort.Direction.DESC)
+                .flatMap(direction -> Stream.of("deadline", "status", "createdAt", "updatedAt", "id")
+                        .map(field -> Arguments.of(new Sort.Order(direction, field))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("orders")
+    void cursorPagesCoverAllTasksOnce(Sort.Order order) {
+        Sort sort = sort(order);
+        List<Long> expected = taskRepository.findAll(byGroup(), sort).stream()
+                .map(Task::getId)
+                .toList();
+        assertThat(expected).hasSize(TASKS);
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        for (int page = 0; page <= TASKS / PAGE_SIZE; page++) {
+            Specification<Task> spec = cursor == null
+                    ? byGroup()
+                    : byGroup().and(TaskSpecifications.after(CursorUtils.decode(cursor, order)));
+            List<Task> tasks = taskRepository.findBy(spec, query -> query.sortBy(sort).limit(PAGE_SIZE).all());
+            if (tasks.isEmpty()) {
+                break;
+            }
+            tasks.forEach(task -> paged.add(task.getId()));
+
+            Task last = tasks.get(tasks.size() - 1);
+            cursor = CursorUtils.encode(new CursorUtils.Cursor(
+                    order.getProperty(),
+                    order.getDirection(),
+                    CursorUtils.fieldValue(last, order.getProperty()),
+                    last.getId().toString()
+            ));
+        }
+
+        assertThat(paged).doesNotHaveDuplicates();
+        assertThat(paged).containsExactlyElementsOf(expected);
+    }
+
+    // Та же сортировка, что и в TaskService.getTasksByCursor
+    private static Sort sort(Sort.Order order) {
+        return "id".equals(order.getProperty())
+                ? Sort.by(order)
+                : Sort.by(order).and(Sort.by(order.getDirection(), "id"));
+    }
+
+    private static Specification<Task> byGroup() {
+        return (root, query, builder) -> builder.equal(root.get("groupId"), groupId);
+    }
+}
@@ -0,0 +1,117 @@
+package com.borovkov.srv.repositories;
+
+import com.borovkov.srv.dto.request.TaskFilter;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.utils.SortUtils;
+import com.borovkov.srv.utils.TaskSpecifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Проверяет по EXPLAIN, что запросы /tasks/list на заполненной таблице не уходят в последовательное сканирование
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.borovkov.srv.repositories.SqlCapturingInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskQueryPlanTests {
+
+    private static final int GROUPS = 100;
+    private static final int TASKS = 200_000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static boolean seeded;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbcTemplate.update("""
+                insert into task_manager.users (username, password, role)
+                select 'user_' || g, 'password', 'ROLE_ADMIN' from generate_series(1, ?) g
+                """, GROUPS);
+        jdbcTemplate.update("""
+                insert into task_manager.tasks (title, description, status, assigned_to, created_by, deadline, group_id)
+                select 'Задача ' || g,
+                       'Описание задачи номер ' || g,
+                       (array['NEW', 'IN_PROGRESS', 'COMPLETED', 'OVERDUE'])[1 + g % 4],
+                       1 + g % ?, 1 + g % ?,
+                       now() + (g % 365) * interval '1 day',
+                       1 + g % ?
+                from generate_series(1, ?) g
+                """, GROUPS, GROUPS, GROUPS, TASKS);
+        jdbcTemplate.execute("analyze task_manager.tasks");
+        jdbcTemplate.execute("analyze task_manager.users");
+        seeded = true;
+    }
+
+    static Stream<Arguments> filters() {
+        OffsetDateTime now = OffsetDateTime.now();
+        return Stream.of(
+                Arguments.of(filter().build(), null),
+                Arguments.of(filter().build(), "createdAt,desk"),
+                Arguments.of(filter().build(), "updatedAt,asc"),
+                Arguments.of(filter().build(), "deadline,desk"),
+                Arguments.of(filter().title("задача 1234").build(), null),
+                Arguments.of(filter().description("номер 99").build(), "createdAt,desk"),
+                Arguments.of(filter().status(Task.STATUS.IN_PROGRESS).build(), null),
+                Arguments.of(filter().userIds(List.of(7L, 8L)).build(), "deadline,asc"),
+                Arguments.of(filter().createdAtFrom(now.minusDays(1)).createdAtTo(now).build(), null),
+                Arguments.of(filter().deadlineFrom(now).deadlineTo(now.plusDays(30)).build(), "deadline,asc"),
+                Arguments.of(filter().updatedAtFrom(now.minusDays(1)).build(), "updatedAt,desk")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void taskListQueriesUseIndexes(TaskFilter filter, String sort) {
+        SqlCapturingInspector.drain();
+
+        taskRepository.findAll(TaskSpecifications.byFilter(filter), PageRequest.of(0, 10, SortUtils.buildSort(sort, Task.class)));
+
+        List<String> statements = SqlCapturingInspector.drain();
+        assertThat(statements).isNotEmpty();
+
+        for (String sql : statements) {
+            // Остаются только параметры пагинации (offset / fetch first)
+            String plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql.replace("?", "10"), String.class));
+            assertThat(plan)
+                    .as("Plan for query:%n%s", sql)
+                    .doesNotContain("Seq Scan on tasks");
+        }
+    }
+
+    private static TaskFilter.TaskFilterBuilder filter() {
+        return TaskFilter.builder().groupId(42L);
+    }
+}
@@ -0,0 +1,121 @@
+package com.borovkov.srv.service;
+
+import com.borovkov.srv.exception.PreconditionFailedException;
+import com.borovkov.srv.mapper.CommonMapper;
+import com.borovkov.srv.models.Task;
+import com.borovkov.srv.models.User;
+import com.borovkov.srv.repositories.CommentsRepository;
+import com.borovkov.srv.repositories.TaskRepository;
+import com.borovkov.srv.utils.ETagUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Условное обновление задачи по If-Match: версия сравнивается с заблокированной строкой до изменения полей
+@ExtendWith(MockitoExtension.class)
+class TaskServiceUpdateTests {
+
+    private static final Long TASK_ID = 42L;
+    private static final Long ADMIN_ID = 1L;
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+    private static final Principal PRINCIPAL = () -> "admin";
+
+    @Mock
+    private TaskRepository repository;
+    @Mock
+    private UserService userService;
+    @Mock
+    private CommonMapper commonMapper;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private UserResolver userResolver;
+    @Mock
+    private CommentsRepository commentsRepository;
+    @Mock
+    private TaskStatsService taskStatsService;
+
+    @InjectMocks
+    private TaskService taskService;
+
+    @BeforeEach
+    void setUp() {
+        Task stored = new Task();
+        stored.setId(TASK_ID);
+        stored.setTitle("Задача");
+        stored.setStatus(Task.STATUS.NEW);
+        stored.setAssignedTo(ADMIN_ID);
+        stored.setCreatedBy(ADMIN_ID);
+        stored.setGroupId(ADMIN_ID);
+        stored.setUpdatedAt(UPDATED_AT);
+
+        when(repository.findByIdForUpdate(TASK_ID)).thenReturn(Optional.of(stored));
+        when(userService.getUserByUsername("admin")).thenReturn(User.builder().id(ADMIN_ID).role(User.Role.ROLE_ADMIN).build());
+        lenient().when(taskStatsService.delta()).thenReturn(new TaskStatsService.Delta());
+        lenient().when(repository.saveAndFlush(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void matchingStrongETagUpdatesTask() {
+        Task updated = taskService.update(request("Новое название"), ETagUtils.task(TASK_ID, UPDATED_AT), PRINCIPAL);
+
+        assertThat(updated.getTitle()).isEqualTo("Новое название");
+        verify(repository).saveAndFlush(any(Task.class));
+    }
+
+    @Test
+    void staleETagIsPreconditionFailed() {
+        String stale = ETagUtils.task(TASK_ID, UPDATED_AT.minusNanos(1_000));
+
+        assertThatThrownBy(() -> taskService.update(request("Новое название"), stale, PRINCIPAL))
+                .isInstanceOf(PreconditionFailedException.class);
+        verify(repository, never()).saveAndFlush(any(Task.class));
+    }
+
+    @Test
+    void weakETagIsPreconditionFailed() {
+        String weak = "W/" + ETagUtils.task(TASK_ID, UPDATED_AT);
+
+        assertThatThrownBy(() -> taskService.update(request("Новое название"), weak, PRINCIPAL))
+                .isInstanceOf(PreconditionFailedException.class);
+        verify(repository, never()).saveAndFlush(any(Task.class));
+    }
+
+    @Test
+    void wildcardUpdatesExistingTask() {
+        Task updated = taskService.update(request("Новое название"), "*", PRINCIPAL);
+
+        assertThat(updated.getTitle()).isEqualTo("Новое название");
+    }
+
+    @Test
+    void missingIfMatchUpdatesUnconditionally() {
+        Task updated = taskService.update(request("Новое название"), null, PRINCIPAL);
+
+        assertThat(updated.getTitle()).isEqualTo("Новое название");
+    }
+
+    private static Task request(String title) {
+        Task task = new Task();
+        task.setId(TASK_ID);
+        task.setTitle(title);
+        task.setStatus(Task.STATUS.NEW);
+        task.setAssignedTo(ADMIN_ID);
+        return task;
+    }
+}
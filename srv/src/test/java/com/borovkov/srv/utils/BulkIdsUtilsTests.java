@@ -0,0 +1,59 @@
+package com.borovkov.srv.utils;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Порядок ошибок массового удаления: существование и группа всех id проверяются раньше повторов
+class BulkIdsUtilsTests {
+
+    private static final Long ADMIN_GROUP_ID = 10L;
+    private static final Long OWN_ID = 1L;
+    private static final Long OTHER_GROUP_ID = 2L;
+
+    // id задачи -> group_id, как в TaskService.checkAdminGroupId
+    private static final Map<Long, Long> GROUP_IDS = Map.of(OWN_ID, ADMIN_GROUP_ID, OTHER_GROUP_ID, 20L);
+
+    @Test
+    void foreignIdAfterRepeatIsAccessDenied() {
+        assertThatThrownBy(() -> check(List.of(OWN_ID, OWN_ID, OTHER_GROUP_ID)))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void repeatedIdIsNotFound() {
+        assertThatThrownBy(() -> check(List.of(OWN_ID, OWN_ID)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("id={ 1 }");
+    }
+
+    @Test
+    void missingIdIsNotFoundBeforeForeignId() {
+        assertThatThrownBy(() -> check(List.of(OWN_ID, 3L, OTHER_GROUP_ID)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("id={ 3 }");
+    }
+
+    @Test
+    void returnsRecordsInRequestOrder() {
+        Map<Long, String> records = Map.of(1L, "first", 2L, "second");
+
+        List<String> checked = BulkIdsUtils.checkInRequestOrder(List.of(2L, 1L), records, record -> true,
+                id -> new EntityNotFoundException("id={ %d }".formatted(id)),
+                () -> new AccessDeniedException("denied"));
+
+        assertThat(checked).containsExactly("second", "first");
+    }
+
+    private static List<Long> check(List<Long> ids) {
+        return BulkIdsUtils.checkInRequestOrder(ids, GROUP_IDS, ADMIN_GROUP_ID::equals,
+                id -> new EntityNotFoundException("Task with id={ %d } not found".formatted(id)),
+                () -> new AccessDeniedException("You are not allowed to delete tasks from another group"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.borovkov.srv.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// If-Match сравнивается сильно, If-None-Match - слабо (RFC 9110, 13.1.1 и 13.1.2)
+class ETagUtilsTests {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+    private static final String ETAG = ETagUtils.task(1L, UPDATED_AT);
+
+    @Test
+    void taskETagIsStrongAndChangesWithEveryMicrosecond() {
+        assertThat(ETAG).startsWith("\"").doesNotStartWith("W/");
+        assertThat(ETagUtils.task(1L, UPDATED_AT.plusNanos(1_000))).isNotEqualTo(ETAG);
+        assertThat(ETagUtils.task(2L, UPDATED_AT)).isNotEqualTo(ETAG);
+    }
+
+    @Test
+    void strongMatchAcceptsSameETag() {
+        assertThat(ETagUtils.matchesStrong(ETAG, ETAG)).isTrue();
+        assertThat(ETagUtils.matchesStrong("\"other\", " + ETAG, ETAG)).isTrue();
+    }
+
+    @Test
+    void strongMatchRejectsStaleETag() {
+        String stale = ETagUtils.task(1L, UPDATED_AT.minusSeconds(1));
+
+        assertThat(ETagUtils.matchesStrong(stale, ETAG)).isFalse();
+    }
+
+    @Test
+    void weakETagNeverMatchesIfMatch() {
+        assertThat(ETagUtils.matchesStrong("W/" + ETAG, ETAG)).isFalse();
+        assertThat(ETagUtils.matches("W/" + ETAG, ETAG)).isTrue();
+    }
+
+    @Test
+    void wildcardMatchesAnyETag() {
+        assertThat(ETagUtils.matchesStrong("*", ETAG)).isTrue();
+        assertThat(ETagUtils.matches("*", ETAG)).isTrue();
+    }
+}